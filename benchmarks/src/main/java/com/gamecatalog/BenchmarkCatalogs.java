@@ -0,0 +1,20 @@
+package com.gamecatalog;
+
+/**
+ * Воспроизводимые каталоги для замеров: одно и то же зерно даёт одни и те же игры
+ */
+final class BenchmarkCatalogs {
+    static final long SEED = 42;
+
+    private BenchmarkCatalogs() {
+    }
+
+    /**
+     * Хранилище с построенными индексами и size играми
+     */
+    static CatalogStore store(int size) {
+        CatalogStore store = new CatalogStore();
+        new CatalogGenerator(SEED).fill(store, size);
+        return store;
+    }
+}
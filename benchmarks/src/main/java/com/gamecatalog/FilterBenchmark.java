@@ -0,0 +1,69 @@
+package com.gamecatalog;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтрация и поиск в том виде, в каком их выполняет filterGames(),
+ * и тот же запрос без индексов
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class FilterBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    /**
+     * Поле поиска; NONE - пустая строка поиска, только фильтры
+     */
+    @Param({"NONE", "TITLE", "DEVELOPER", "PLATFORM"})
+    String field;
+
+    /**
+     * Набор фильтров: жанр, год, минимальный рейтинг
+     */
+    @Param({"ALL", "GENRE", "GENRE_YEAR", "GENRE_YEAR_RATING", "RATING"})
+    String filter;
+
+    private CatalogStore store;
+    private GameQuery query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = BenchmarkCatalogs.store(size);
+        SearchField searchField = field.equals("NONE") ? SearchField.TITLE : SearchField.valueOf(field);
+        String text = switch (field) {
+            case "TITLE" -> "дракона";
+            case "DEVELOPER" -> "games";
+            case "PLATFORM" -> "ps5";
+            default -> "";
+        };
+        Game.Genre genre = filter.startsWith("GENRE") ? Game.Genre.ACTION_RPG : null;
+        Integer year = filter.contains("YEAR") ? 2015 : null;
+        double minRating = filter.contains("RATING") ? 7.0 : 0.0;
+        query = GameQuery.of(genre, year, minRating, searchField, text);
+    }
+
+    @Benchmark
+    public int[] filterGames() {
+        return query.select(store).stream().toArray();
+    }
+
+    /**
+     * Тот же запрос полным проходом по колонкам без индексов - для сравнения
+     */
+    @Benchmark
+    public int[] scanColumns() {
+        store.readLock().lock();
+        try {
+            return query.scan(store.columns()).stream().toArray();
+        } finally {
+            store.readLock().unlock();
+        }
+    }
+}
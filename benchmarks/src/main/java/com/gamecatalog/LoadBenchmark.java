@@ -0,0 +1,45 @@
+package com.gamecatalog;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузка каталога из файла с построением индексов, как в loadFromFile()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class LoadBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"CSV", "TXT", "BINARY", "JSON"})
+    CatalogFormat format;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("catalog-load", "." + format.extension());
+        CatalogFiles.save(BenchmarkCatalogs.store(size), file, format, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public CatalogStore loadFromFile() throws IOException {
+        CatalogStore store = new CatalogStore();
+        store.replaceAll(CatalogFiles.load(file, new ImportReport()));
+        return store;
+    }
+}
@@ -0,0 +1,45 @@
+package com.gamecatalog;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение каталога в файл, как в saveToFile()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class SaveBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    @Param({"CSV", "TXT", "BINARY", "JSON"})
+    CatalogFormat format;
+
+    private CatalogStore store;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        store = BenchmarkCatalogs.store(size);
+        file = Files.createTempFile("catalog-save", "." + format.extension());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long saveToFile() throws IOException {
+        CatalogFiles.save(store, file, format, true);
+        return Files.size(file);
+    }
+}
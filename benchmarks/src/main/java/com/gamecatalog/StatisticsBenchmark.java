@@ -0,0 +1,45 @@
+package com.gamecatalog;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Текст статистики, который показывает updateStatistics()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx12g"})
+public class StatisticsBenchmark {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    int size;
+
+    private CatalogStore store;
+    private Game game;
+    private double rating;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = BenchmarkCatalogs.store(size);
+        game = store.columns().game(store.columns().nextSlot(0));
+    }
+
+    @Benchmark
+    public String updateStatistics() {
+        return store.statisticsReport();
+    }
+
+    /**
+     * Изменение одной игры и пересчёт статистики, как после диалога редактирования
+     */
+    @Benchmark
+    public String editAndUpdateStatistics() {
+        rating = rating >= 9.9 ? 0.0 : rating + 0.1;
+        store.update(new Game(game.getId(), game.getTitle(), game.getGenre(), game.getReleaseYear(),
+                rating, game.getDeveloper(), game.getPlatform()));
+        return store.statisticsReport();
+    }
+}
@@ -0,0 +1,301 @@
+package com.gamecatalog;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Двоичный формат каталога (.gcat).
+ * После заголовка (сигнатура, версия, число игр, размеры словарей) идут
+ * колонки чисел фиксированной ширины, затем словари разработчиков и платформ
+ * и названия; строки записываются в UTF-8 с длиной впереди.
+ * Числовые колонки выровнены по своей ширине и читаются из отображённого
+ * в память файла окнами прямо в массивы, идентификаторы игр сохраняются.
+ */
+final class BinaryCatalog {
+    static final int MAGIC = 0x47434154; // "GCAT"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    // Байт числовых колонок на игру: idHi, idLo, год, разработчик, платформа, рейтинг, жанр
+    private static final int ROW_NUMERIC_SIZE = 8 + 8 + 4 + 4 + 4 + 2 + 1;
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Окно отображения: колонки и строковая часть могут быть больше 2 ГБ
+    private static final long MAP_WINDOW = 1L << 28;
+    /**
+     * Наибольшее число игр: колонки читаются в массивы, а больше массив не бывает
+     */
+    static final int MAX_ROWS = Integer.MAX_VALUE - 8;
+
+    private BinaryCatalog() {
+    }
+
+    /**
+     * Запись живых игр колонок в файл
+     */
+    static void write(GameColumns columns, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            StringDictionary developers = columns.developerDictionary();
+            StringDictionary platforms = columns.platformDictionary();
+            int count = columns.size();
+            // Записывается только то, что read() сможет загрузить обратно
+            if (count > MAX_ROWS) {
+                throw new IOException("слишком много игр для двоичного каталога: " + count);
+            }
+
+            out.ensure(HEADER_SIZE);
+            out.buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                    .putInt(count).putInt(developers.size()).putInt(platforms.size()).putInt(0);
+
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.ensure(8);
+                out.buffer.putLong(columns.idHi(slot));
+            }
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.ensure(8);
+                out.buffer.putLong(columns.idLo(slot));
+            }
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.ensure(4);
+                out.buffer.putInt(columns.year(slot));
+            }
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.ensure(4);
+                out.buffer.putInt(columns.developerCode(slot));
+            }
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.ensure(4);
+                out.buffer.putInt(columns.platformCode(slot));
+            }
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.ensure(2);
+                out.buffer.putShort((short) columns.ratingTenths(slot));
+            }
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.ensure(1);
+                out.buffer.put((byte) columns.genreOrdinal(slot));
+            }
+
+            for (int code = 0; code < developers.size(); code++) {
+                out.putString(developers.decode(code));
+            }
+            for (int code = 0; code < platforms.size(); code++) {
+                out.putString(platforms.decode(code));
+            }
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                out.putString(columns.title(slot));
+            }
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Чтение каталога; массивы создаются сразу нужного размера
+     */
+    static GameColumns read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("файл слишком короткий для каталога");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("файл не является двоичным каталогом");
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("неподдерживаемая версия каталога: " + version);
+            }
+            header.getShort();
+            int count = header.getInt();
+            int developerCount = header.getInt();
+            int platformCount = header.getInt();
+            long numericSize = (long) count * ROW_NUMERIC_SIZE;
+            // Каждая строка занимает хотя бы 4 байта длины
+            long minStringsSize = 4L * ((long) count + developerCount + platformCount);
+            if (count < 0 || count > MAX_ROWS || developerCount < 0 || platformCount < 0
+                    || HEADER_SIZE + numericSize + minStringsSize > fileSize) {
+                throw new IOException("каталог повреждён: неверный заголовок");
+            }
+
+            long[] idHi = new long[count];
+            long[] idLo = new long[count];
+            int[] years = new int[count];
+            int[] developers = new int[count];
+            int[] platforms = new int[count];
+            short[] ratings = new short[count];
+            byte[] genres = new byte[count];
+            long position = HEADER_SIZE;
+            position = readColumn(channel, position, count, 8,
+                    (window, from, n) -> window.asLongBuffer().get(idHi, from, n));
+            position = readColumn(channel, position, count, 8,
+                    (window, from, n) -> window.asLongBuffer().get(idLo, from, n));
+            position = readColumn(channel, position, count, 4,
+                    (window, from, n) -> window.asIntBuffer().get(years, from, n));
+            position = readColumn(channel, position, count, 4,
+                    (window, from, n) -> window.asIntBuffer().get(developers, from, n));
+            position = readColumn(channel, position, count, 4,
+                    (window, from, n) -> window.asIntBuffer().get(platforms, from, n));
+            position = readColumn(channel, position, count, 2,
+                    (window, from, n) -> window.asShortBuffer().get(ratings, from, n));
+            readColumn(channel, position, count, 1, (window, from, n) -> window.get(genres, from, n));
+
+            Input in = new Input(channel, HEADER_SIZE + numericSize, fileSize);
+            try {
+                String[] developerValues = in.getStrings(developerCount);
+                String[] platformValues = in.getStrings(platformCount);
+                String[] titles = in.getStrings(count);
+
+                int genreCount = Game.Genre.values().length;
+                for (int i = 0; i < count; i++) {
+                    if (genres[i] < 0 || genres[i] >= genreCount
+                            || developers[i] < 0 || developers[i] >= developerCount
+                            || platforms[i] < 0 || platforms[i] >= platformCount) {
+                        throw new IOException("каталог повреждён: неверный код в строке " + (i + 1));
+                    }
+                }
+                return GameColumns.of(count, idHi, idLo, titles, genres, years, ratings,
+                        developers, platforms, developerValues, platformValues);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("каталог повреждён: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Часть колонки: значения from .. from + count - 1 из окна отображения
+     */
+    private interface ColumnPart {
+        void read(MappedByteBuffer window, int from, int count);
+    }
+
+    /**
+     * Колонка из count значений по width байт с позиции position. Отображается
+     * окнами не больше MAP_WINDOW, поэтому одно отображение (до 2 ГБ) не
+     * ограничивает число игр. Возвращает позицию следующей колонки.
+     */
+    private static long readColumn(FileChannel channel, long position, int count, int width, ColumnPart part)
+            throws IOException {
+        int perWindow = (int) (MAP_WINDOW / width);
+        for (int from = 0; from < count; from += perWindow) {
+            int n = Math.min(perWindow, count - from);
+            part.read(channel.map(FileChannel.MapMode.READ_ONLY, position + (long) from * width, (long) n * width),
+                    from, n);
+        }
+        return position + (long) count * width;
+    }
+
+    /**
+     * Запись через прямой буфер, который сбрасывается в канал по заполнении
+     */
+    private static final class Output {
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            // Строка читается из одного окна отображения
+            if (bytes.length > MAP_WINDOW) {
+                throw new IOException("строка длиннее " + MAP_WINDOW + " байт не помещается в каталог");
+            }
+            ensure(4);
+            buffer.putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Последовательное чтение строк из окон отображённого файла
+     */
+    private static final class Input {
+        final FileChannel channel;
+        final long end;
+        long windowStart;
+        MappedByteBuffer window;
+        byte[] scratch = new byte[256];
+
+        Input(FileChannel channel, long start, long end) throws IOException {
+            this.channel = channel;
+            this.end = end;
+            map(start);
+        }
+
+        String[] getStrings(int count) throws IOException {
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = getString();
+            }
+            return values;
+        }
+
+        String getString() throws IOException {
+            require(4);
+            int length = window.getInt();
+            if (length < 0) {
+                throw new IOException("каталог повреждён: отрицательная длина строки");
+            }
+            require(length);
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            window.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Сдвиг окна, если в нём осталось меньше bytes байт
+         */
+        private void require(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = windowStart + window.position();
+            if (position + bytes > end) {
+                throw new IOException("каталог повреждён: файл обрезан");
+            }
+            map(position);
+            if (window.remaining() < bytes) {
+                throw new IOException("каталог повреждён: слишком длинная строка");
+            }
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            long size = Math.min(end - position, MAP_WINDOW);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.gamecatalog;
+
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Битовые индексы по жанру, году и рейтингу.
+ * Фильтры по этим полям сводятся к пересечению битовых множеств слотов.
+ */
+final class BitmapIndex implements CatalogListener {
+    static final int MAX_RATING = 100; // 10.0 в десятых долях
+
+    private final CatalogStore store;
+    private final BitSet[] byGenre = new BitSet[Game.Genre.values().length];
+    private final NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+    // Корзины по рейтингу в десятых долях - индекс, упорядоченный по рейтингу
+    private final BitSet[] byRating = new BitSet[MAX_RATING + 1];
+
+    BitmapIndex(CatalogStore store) {
+        this.store = store;
+        reset();
+    }
+
+    @Override
+    public void rowAdded(int slot) {
+        GameColumns columns = store.columns();
+        byGenre[columns.genreOrdinal(slot)].set(slot);
+        byYear.computeIfAbsent(columns.year(slot), y -> new BitSet()).set(slot);
+        byRating[bucket(columns.ratingTenths(slot))].set(slot);
+    }
+
+    @Override
+    public void rowRemoved(int slot) {
+        GameColumns columns = store.columns();
+        byGenre[columns.genreOrdinal(slot)].clear(slot);
+        BitSet year = byYear.get(columns.year(slot));
+        year.clear(slot);
+        if (year.isEmpty()) {
+            byYear.remove(columns.year(slot));
+        }
+        byRating[bucket(columns.ratingTenths(slot))].clear(slot);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < byGenre.length; i++) {
+            byGenre[i] = new BitSet();
+        }
+        for (int i = 0; i < byRating.length; i++) {
+            byRating[i] = new BitSet();
+        }
+        byYear.clear();
+        GameColumns columns = store.columns();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            rowAdded(slot);
+        }
+    }
+
+    /**
+     * Слоты, подходящие под фильтр; null в жанре или годе - без ограничения
+     */
+    BitSet select(Game.Genre genre, Integer year, int minRatingTenths) {
+        BitSet result;
+        if (year != null) {
+            BitSet byThisYear = byYear.get(year);
+            if (byThisYear == null) {
+                return new BitSet();
+            }
+            result = (BitSet) byThisYear.clone();
+            if (genre != null) {
+                result.and(byGenre[genre.ordinal()]);
+            }
+        } else if (genre != null) {
+            result = (BitSet) byGenre[genre.ordinal()].clone();
+        } else {
+            result = store.columns().liveSlots();
+        }
+
+        if (minRatingTenths > 0) {
+            result.and(atLeast(minRatingTenths));
+        }
+        return result;
+    }
+
+    /**
+     * Слоты с рейтингом не ниже порога; объединяется меньшая часть корзин
+     */
+    private BitSet atLeast(int minRatingTenths) {
+        int threshold = bucket(minRatingTenths);
+        BitSet result = new BitSet();
+        if (threshold > MAX_RATING / 2) {
+            for (int r = threshold; r <= MAX_RATING; r++) {
+                result.or(byRating[r]);
+            }
+        } else {
+            result = store.columns().liveSlots();
+            for (int r = 0; r < threshold; r++) {
+                result.andNot(byRating[r]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Годы выпуска, встречающиеся в каталоге, по возрастанию
+     */
+    NavigableMap<Integer, BitSet> years() {
+        return byYear;
+    }
+
+    /**
+     * Слоты с рейтингом ровно ratingTenths (вне шкалы - крайние корзины)
+     */
+    BitSet ratingBucket(int ratingTenths) {
+        return byRating[bucket(ratingTenths)];
+    }
+
+    private static int bucket(int ratingTenths) {
+        return Math.max(0, Math.min(MAX_RATING, ratingTenths));
+    }
+}
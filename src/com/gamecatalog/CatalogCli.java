@@ -0,0 +1,283 @@
+package com.gamecatalog;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Пакетный режим без графического интерфейса: загрузка, фильтр,
+ * статистика и сохранение за один запуск. Классы AWT и Swing
+ * не загружаются, поэтому запуск из скриптов обходится дёшево.
+ */
+final class CatalogCli {
+    static final int OK = 0;
+    static final int IO_ERROR = 1;
+    static final int USAGE_ERROR = 2;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Использование: java -cp <классы> com.gamecatalog.Main [параметры]",
+            "",
+            "Источник (один из):",
+            "  --in <файл>            загрузить каталог (.txt, .csv, .gcat, .json)",
+            "  --generate <N>         синтетический каталог из N игр",
+            "  --seed <число>         зерно генератора (по умолчанию 1)",
+            "",
+            "Фильтр, как в окне поиска:",
+            "  --genre <жанр>         Action, RPG или Action/RPG",
+            "  --year <год>           год выпуска",
+            "  --min-rating <число>   минимальный рейтинг, например 7.5",
+            "  --search <текст>       текст для поиска без учёта регистра",
+            "  --field <поле>         title, developer или platform (по умолчанию title)",
+            "  --fuzzy <K>            искать с опечатками, K лучших совпадений",
+            "",
+            "Результат:",
+            "  --stats                вывести статистику по найденным играм",
+            "  --out <файл|->         сохранить найденные игры; '-' - в стандартный вывод",
+            "  --format <формат>      txt, csv, gcat или json (по умолчанию по расширению --out)",
+            "  --no-header            не писать шапку с датой сохранения",
+            "  --serve <порт>         затем отвечать на HTTP-запросы /games и /stats",
+            "                         на 127.0.0.1 до завершения процесса (0 - свободный порт)",
+            "  --help                 эта справка",
+            "",
+            "Без --stats, --out и --serve выводится число найденных игр.",
+            "--generate с --out без фильтра и --stats пишет игры сразу в файл, не держа их в памяти.");
+
+    private String input;
+    private long generate = -1;
+    private long seed = 1;
+    private Game.Genre genre;
+    private Integer year;
+    private double minRating;
+    private String text = "";
+    private SearchField field = SearchField.TITLE;
+    private int fuzzy;
+    private boolean stats;
+    private String output;
+    private CatalogFormat format;
+    private boolean includeHeader = true;
+    private int serve = -1;
+
+    private CatalogCli() {
+    }
+
+    /**
+     * Выполнение команды; возвращает код завершения процесса
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        // Даже случайное обращение к AWT не должно искать дисплей
+        System.setProperty("java.awt.headless", "true");
+        CatalogCli cli = new CatalogCli();
+        try {
+            if (!cli.parse(args)) {
+                out.println(USAGE);
+                return OK;
+            }
+        } catch (IllegalArgumentException e) {
+            err.println("Ошибка: " + e.getMessage());
+            err.println("Справка: --help");
+            return USAGE_ERROR;
+        }
+        try {
+            cli.execute(out, err);
+            return OK;
+        } catch (IOException e) {
+            err.println("Ошибка ввода-вывода: " + e.getMessage());
+            return IO_ERROR;
+        }
+    }
+
+    /**
+     * Разбор аргументов; false - запрошена справка
+     */
+    private boolean parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            switch (option) {
+                case "--help", "-h" -> {
+                    return false;
+                }
+                case "--stats" -> stats = true;
+                case "--no-header" -> includeHeader = false;
+                case "--in" -> input = value(args, ++i, option);
+                case "--generate" -> generate = parseLong(value(args, ++i, option), option, 0, Long.MAX_VALUE);
+                case "--seed" -> seed = parseLong(value(args, ++i, option), option);
+                case "--genre" -> genre = parseGenre(value(args, ++i, option));
+                case "--year" -> year = (int) parseLong(value(args, ++i, option), option, 1, 9999);
+                case "--min-rating" -> minRating = parseRating(value(args, ++i, option));
+                case "--search" -> text = value(args, ++i, option);
+                case "--field" -> field = parseField(value(args, ++i, option));
+                case "--fuzzy" -> fuzzy = (int) Math.min(Integer.MAX_VALUE, parseLong(value(args, ++i, option), option));
+                case "--out" -> output = value(args, ++i, option);
+                case "--format" -> format = parseFormat(value(args, ++i, option));
+                case "--serve" -> serve = (int) parseLong(value(args, ++i, option), option, 0, 65535);
+                default -> throw new IllegalArgumentException("неизвестный параметр " + option);
+            }
+        }
+        if ((input == null) == (generate < 0)) {
+            throw new IllegalArgumentException("нужен ровно один источник: --in или --generate");
+        }
+        if (fuzzy < 0 || (fuzzy > 0 && text.isBlank())) {
+            throw new IllegalArgumentException("--fuzzy: нужно положительное K и текст в --search");
+        }
+        if (format == null && output != null) {
+            format = output.equals("-") ? CatalogFormat.CSV : CatalogFormat.fromFileName(output);
+        }
+        if (format == CatalogFormat.BINARY && "-".equals(output)) {
+            throw new IllegalArgumentException("двоичный формат нельзя вывести в стандартный вывод");
+        }
+        if (generate > Integer.MAX_VALUE && !streamsGenerated()) {
+            throw new IllegalArgumentException("--generate в память: не больше " + Integer.MAX_VALUE + " игр");
+        }
+        return true;
+    }
+
+    /**
+     * Сгенерированный каталог без фильтра, статистики и сервера пишется прямо
+     * из генератора: игры не копятся в памяти, и их число не ограничено
+     */
+    private boolean streamsGenerated() {
+        return generate >= 0 && output != null && format != CatalogFormat.BINARY && !stats && serve < 0
+                && genre == null && year == null && minRating <= 0 && text.isBlank();
+    }
+
+    private void execute(PrintStream out, PrintStream err) throws IOException {
+        if (streamsGenerated()) {
+            CatalogGenerator generator = new CatalogGenerator(seed);
+            if (output.equals("-")) {
+                generator.write(generate, new OutputStreamWriter(out, StandardCharsets.UTF_8), format, includeHeader);
+            } else {
+                try (Writer writer = new OutputStreamWriter(Files.newOutputStream(Path.of(output)),
+                        StandardCharsets.UTF_8)) {
+                    generator.write(generate, writer, format, includeHeader);
+                }
+            }
+            return;
+        }
+        CatalogStore store = new CatalogStore();
+        if (input != null) {
+            ImportReport report = new ImportReport();
+            store.replaceAll(CatalogFiles.load(Path.of(input), report));
+            if (report.errors() > 0) {
+                err.println(report.summary(5));
+            }
+        } else {
+            new CatalogGenerator(seed).fill(store, (int) generate);
+        }
+
+        GameQuery query = GameQuery.of(genre, year, minRating, field, text);
+        // Нечёткий поиск выдаёт игры по убыванию качества совпадения
+        int[] ranked = fuzzy > 0 ? store.fuzzySearch(query, fuzzy) : null;
+        BitSet matches = ranked == null ? query.select(store) : toBitSet(ranked);
+        boolean everything = ranked == null && matches.cardinality() == store.size();
+
+        if (stats) {
+            // Статистика по найденным играм, а не по всему каталогу
+            CatalogStore result = store;
+            if (!everything) {
+                result = new CatalogStore();
+                result.replaceAll(store.columns().copy(matches));
+            }
+            out.println(result.statisticsReport());
+        }
+        if (output != null) {
+            GameColumns columns = everything ? store.columns()
+                    : ranked != null ? store.columns().copy(ranked) : store.columns().copy(matches);
+            if (output.equals("-")) {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                CatalogExporter exporter = new CatalogExporter(writer);
+                exporter.writeAll(columns, format, includeHeader);
+                exporter.flush();
+            } else {
+                CatalogFiles.save(columns, Path.of(output), format, includeHeader);
+            }
+        }
+        if (serve >= 0) {
+            // Сервер отвечает по всему каталогу; фильтр задаётся в каждом запросе
+            CatalogServer server = CatalogServer.start(store, serve);
+            out.println("HTTP: http://127.0.0.1:" + server.port() + "/games (" + store.size() + " игр)");
+            out.flush();
+            try {
+                server.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (!stats && output == null) {
+            out.println(matches.cardinality());
+        }
+    }
+
+    private static BitSet toBitSet(int[] slots) {
+        BitSet set = new BitSet();
+        for (int slot : slots) {
+            set.set(slot);
+        }
+        return set;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("у параметра " + option + " нет значения");
+        }
+        return args[index];
+    }
+
+    private static long parseLong(String text, String option) {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + ": ожидается целое число, получено '" + text + "'");
+        }
+    }
+
+    /**
+     * Целое в пределах [min, max]: значение вне их - ошибка, а не молчаливое усечение
+     */
+    private static long parseLong(String text, String option, long min, long max) {
+        long value = parseLong(text, option);
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(option + ": ожидается число от " + min + " до " + max
+                    + ", получено " + value);
+        }
+        return value;
+    }
+
+    private static double parseRating(String text) {
+        try {
+            return Double.parseDouble(text.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--min-rating: ожидается число, получено '" + text + "'");
+        }
+    }
+
+    private static Game.Genre parseGenre(String text) {
+        try {
+            return CatalogFiles.parseGenre(text);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("--genre: неизвестный жанр '" + text + "'");
+        }
+    }
+
+    private static SearchField parseField(String text) {
+        try {
+            return SearchField.valueOf(text.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("--field: ожидается title, developer или platform");
+        }
+    }
+
+    private static CatalogFormat parseFormat(String text) {
+        String lower = text.trim().toLowerCase(Locale.ROOT);
+        for (CatalogFormat candidate : CatalogFormat.values()) {
+            if (candidate.extension().equals(lower) || candidate.name().equalsIgnoreCase(lower)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("--format: ожидается txt, csv, gcat или json");
+    }
+}
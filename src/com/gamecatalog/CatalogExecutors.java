@@ -0,0 +1,67 @@
+package com.gamecatalog;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пулы потоков приложения. Все потоки - демоны, чтобы не мешать выходу.
+ */
+final class CatalogExecutors {
+    // Прерывание проверяется на каждой 4096-й итерации длинного цикла
+    private static final int CANCEL_CHECK_MASK = 4095;
+
+    private CatalogExecutors() {
+    }
+
+    /**
+     * Точка отмены в длинных циклах запросов: если поток прерван (запрос заменён
+     * более новым), бросается CancellationException и блокировка чтения освобождается.
+     * iteration - номер итерации цикла.
+     */
+    static void checkCancelled(int iteration) {
+        if ((iteration & CANCEL_CHECK_MASK) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("запрос отменён");
+        }
+    }
+
+    /**
+     * Исполнитель коротких задач: виртуальный поток на задачу, если JVM их поддерживает
+     * (Java 21+), иначе кэширующий пул потоков-демонов
+     */
+    static ExecutorService newTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonFactory(name));
+        }
+    }
+
+    /**
+     * Однопоточный планировщик отложенных задач
+     */
+    static ScheduledExecutorService newScheduler(String name) {
+        return Executors.newSingleThreadScheduledExecutor(daemonFactory(name));
+    }
+
+    /**
+     * Однопоточный исполнитель: задачи выполняются по очереди в порядке отправки
+     */
+    static ExecutorService newSerialExecutor(String name) {
+        return Executors.newSingleThreadExecutor(daemonFactory(name));
+    }
+
+    static ThreadFactory daemonFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
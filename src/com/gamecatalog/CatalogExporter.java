@@ -0,0 +1,316 @@
+package com.gamecatalog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+
+/**
+ * Потоковая запись каталога в CSV и TXT.
+ * Символы копятся в собственном большом буфере и уходят в Writer блоками;
+ * год и рейтинг пишутся цифрами без String.format, поля CSV берутся
+ * в кавычки только при необходимости.
+ */
+public final class CatalogExporter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 18;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final String[] GENRE_NAMES = new String[Game.Genre.values().length];
+
+    static {
+        for (Game.Genre genre : Game.Genre.values()) {
+            GENRE_NAMES[genre.ordinal()] = genre.toString().replace("_", "/");
+        }
+    }
+
+    private final Writer out;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    // Игр в текущем массиве JSON: перед каждой, кроме первой, ставится запятая
+    private long jsonRows;
+
+    public CatalogExporter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Жанр так, как он пишется в файлы каталога: "Action/RPG"
+     */
+    static String genreName(Game.Genre genre) {
+        return GENRE_NAMES[genre.ordinal()];
+    }
+
+    /**
+     * Шапка файла с датой сохранения
+     */
+    public void writeBanner(long count) throws IOException {
+        String line = "=".repeat(70);
+        append(line).newLine();
+        append("КАТАЛОГ КОМПЬЮТЕРНЫХ ИГР ЖАНРА ACTION/RPG").newLine();
+        append(line).newLine();
+        append("Дата сохранения: ").append(new Date().toString()).newLine();
+        append("Всего игр: ").appendLong(count).newLine();
+        append(line).newLine();
+        newLine();
+    }
+
+    public void writeCsvHeader() throws IOException {
+        append(CatalogFiles.CSV_HEADER).newLine();
+    }
+
+    public void writeCsvRow(String title, Game.Genre genre, int year, int ratingTenths,
+                            String developer, String platform) throws IOException {
+        appendCsvField(title).append(',');
+        append(GENRE_NAMES[genre.ordinal()]).append(',');
+        appendLong(year).append(',');
+        appendRating(ratingTenths).append(',');
+        appendCsvField(developer).append(',');
+        appendCsvField(platform).newLine();
+    }
+
+    public void writeTxtRow(long number, String title, Game.Genre genre, int year, int ratingTenths,
+                            String developer, String platform) throws IOException {
+        appendLong(number).append(". ").append(title).newLine();
+        append("   Жанр: ").append(GENRE_NAMES[genre.ordinal()]).newLine();
+        append("   Год выпуска: ").appendLong(year).newLine();
+        append("   Рейтинг: ").appendRating(ratingTenths).append("/10.0").newLine();
+        append("   Разработчик: ").append(developer).newLine();
+        append("   Платформа: ").append(platform).newLine();
+        newLine();
+    }
+
+    /**
+     * Начало массива игр JSON; игры пишутся writeJsonRow, конец - endJsonArray
+     */
+    public void beginJsonArray() throws IOException {
+        append('[');
+        jsonRows = 0;
+    }
+
+    /**
+     * Объект игры JSON, по одному на строку; идентификатор пишется из двух
+     * половин UUID без промежуточной строки
+     */
+    public void writeJsonRow(long idHi, long idLo, String title, Game.Genre genre, int year, int ratingTenths,
+                             String developer, String platform) throws IOException {
+        append(jsonRows++ == 0 ? "" : ",").newLine();
+        append("{\"id\":\"");
+        appendHex(idHi >>> 32, 8).append('-').appendHex(idHi >>> 16, 4).append('-').appendHex(idHi, 4)
+                .append('-').appendHex(idLo >>> 48, 4).append('-').appendHex(idLo, 12).append("\",");
+        appendJsonFields(title, genre, year, ratingTenths, developer, platform);
+    }
+
+    /**
+     * Объект игры JSON без идентификатора: при загрузке игра получит новый
+     */
+    public void writeJsonRow(String title, Game.Genre genre, int year, int ratingTenths,
+                             String developer, String platform) throws IOException {
+        append(jsonRows++ == 0 ? "" : ",").newLine();
+        append('{');
+        appendJsonFields(title, genre, year, ratingTenths, developer, platform);
+    }
+
+    public void endJsonArray() throws IOException {
+        newLine().append(']');
+    }
+
+    /**
+     * Массив JSON из всех игр колонок в порядке каталога
+     */
+    public void writeJsonArray(GameColumns columns) throws IOException {
+        beginJsonArray();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            writeJsonRow(columns.idHi(slot), columns.idLo(slot), columns.title(slot), columns.genre(slot),
+                    columns.year(slot), columns.ratingTenths(slot), columns.developer(slot), columns.platform(slot));
+        }
+        endJsonArray();
+    }
+
+    /**
+     * Запись всех игр колонок в порядке каталога. В JSON нет комментариев,
+     * поэтому шапка с датой в нём не пишется.
+     */
+    public void writeAll(GameColumns columns, CatalogFormat format, boolean includeHeader) throws IOException {
+        if (format == CatalogFormat.JSON) {
+            writeJsonArray(columns);
+            newLine();
+            return;
+        }
+        if (includeHeader) {
+            writeBanner(columns.size());
+        }
+        if (format == CatalogFormat.CSV) {
+            writeCsvHeader();
+        }
+        long number = 0;
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            if (format == CatalogFormat.CSV) {
+                writeCsvRow(columns.title(slot), columns.genre(slot), columns.year(slot),
+                        columns.ratingTenths(slot), columns.developer(slot), columns.platform(slot));
+            } else {
+                writeTxtRow(++number, columns.title(slot), columns.genre(slot), columns.year(slot),
+                        columns.ratingTenths(slot), columns.developer(slot), columns.platform(slot));
+            }
+        }
+    }
+
+    /**
+     * Поле CSV: кавычки нужны, если есть разделитель, кавычка, перевод строки
+     * или пробелы по краям (без кавычек они обрезаются при чтении)
+     */
+    private CatalogExporter appendCsvField(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            return append(value);
+        }
+        append('"');
+        int from = 0;
+        for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', i + 1)) {
+            append(value, from, i + 1).append('"');
+            from = i + 1;
+        }
+        return append(value, from, value.length()).append('"');
+    }
+
+    private void appendJsonFields(String title, Game.Genre genre, int year, int ratingTenths,
+                                  String developer, String platform) throws IOException {
+        append("\"title\":").appendJsonString(title);
+        append(",\"genre\":\"").append(GENRE_NAMES[genre.ordinal()]);
+        append("\",\"year\":").appendLong(year);
+        append(",\"rating\":").appendRating(ratingTenths);
+        append(",\"developer\":").appendJsonString(developer);
+        append(",\"platform\":").appendJsonString(platform).append('}');
+    }
+
+    /**
+     * Строка JSON: кавычки, обратная косая черта и управляющие символы экранируются
+     */
+    private CatalogExporter appendJsonString(String value) throws IOException {
+        append('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            append(value, from, i).append('\\');
+            switch (c) {
+                case '"', '\\' -> append(c);
+                case '\n' -> append('n');
+                case '\r' -> append('r');
+                case '\t' -> append('t');
+                default -> append('u').appendHex(c, 4);
+            }
+            from = i + 1;
+        }
+        return append(value, from, value.length()).append('"');
+    }
+
+    /**
+     * Младшие digits шестнадцатеричных цифр числа
+     */
+    private CatalogExporter appendHex(long value, int digits) throws IOException {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            append(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+        return this;
+    }
+
+    private static boolean needsQuotes(String value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        if (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(length - 1))) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CatalogExporter append(String value) throws IOException {
+        return append(value, 0, value.length());
+    }
+
+    private CatalogExporter append(String value, int from, int to) throws IOException {
+        while (from < to) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int count = Math.min(to - from, buffer.length - position);
+            value.getChars(from, from + count, buffer, position);
+            position += count;
+            from += count;
+        }
+        return this;
+    }
+
+    private CatalogExporter append(char c) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = c;
+        return this;
+    }
+
+    private CatalogExporter newLine() throws IOException {
+        return append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Целое число цифрами, без промежуточной строки
+     */
+    private CatalogExporter appendLong(long value) throws IOException {
+        if (buffer.length - position < 20) {
+            flushBuffer();
+        }
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return append(Long.toString(value));
+            }
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+        return this;
+    }
+
+    /**
+     * Рейтинг с одним знаком после точки из десятых долей
+     */
+    private CatalogExporter appendRating(int tenths) throws IOException {
+        if (tenths < 0) {
+            append('-');
+            tenths = -tenths;
+        }
+        return appendLong(tenths / 10).append('.').append((char) ('0' + tenths % 10));
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+}
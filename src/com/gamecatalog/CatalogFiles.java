@@ -0,0 +1,343 @@
+package com.gamecatalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * Чтение и запись каталога в файлы (TXT, CSV, двоичный .gcat) без графического интерфейса.
+ * При загрузке формат определяется по расширению файла.
+ */
+public final class CatalogFiles {
+    static final String CSV_HEADER = "Title,Genre,Year,Rating,Developer,Platform";
+    private static final Pattern TXT_GAME_LINE = Pattern.compile("\\d+\\.\\s+.+");
+    // CSV больше этого размера загружается параллельно
+    static final long PARALLEL_THRESHOLD = 32L << 20;
+    // Поля игры в JSON в порядке записи
+    static final String[] JSON_FIELDS = {"id", "title", "genre", "year", "rating", "developer", "platform"};
+
+    private CatalogFiles() {
+    }
+
+    /**
+     * Сохранение каталога в файл указанного формата
+     */
+    public static void save(CatalogStore store, Path file, CatalogFormat format, boolean includeHeader)
+            throws IOException {
+        store.readLock().lock();
+        try {
+            save(store.columns(), file, format, includeHeader);
+        } finally {
+            store.readLock().unlock();
+        }
+    }
+
+    /**
+     * Сохранение колонок, которые не меняются во время записи
+     */
+    public static void save(GameColumns columns, Path file, CatalogFormat format, boolean includeHeader)
+            throws IOException {
+        if (format == CatalogFormat.BINARY) {
+            BinaryCatalog.write(columns, file);
+            return;
+        }
+        try (CatalogExporter exporter = new CatalogExporter(new OutputStreamWriter(
+                Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+            exporter.writeAll(columns, format, includeHeader);
+        }
+    }
+
+    /**
+     * Загрузка каталога; некорректные строки пропускаются и попадают в report
+     */
+    public static GameColumns load(Path file, ImportReport report) throws IOException {
+        CatalogFormat format = CatalogFormat.fromFileName(file.getFileName().toString());
+        if (format == CatalogFormat.BINARY) {
+            GameColumns columns = BinaryCatalog.read(file);
+            report.rowsLoaded(columns.size());
+            return columns;
+        }
+        if (format == CatalogFormat.CSV && Files.size(file) > PARALLEL_THRESHOLD) {
+            return loadParallel(file, report);
+        }
+        GameColumns columns = new GameColumns();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (format == CatalogFormat.CSV) {
+                readCsv(reader, columns, report);
+            } else if (format == CatalogFormat.JSON) {
+                readJson(new JsonReader(reader), columns, report);
+            } else {
+                readTxt(reader, columns, report);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Параллельная загрузка CSV через отображение файла в память
+     */
+    public static GameColumns loadParallel(Path file, ImportReport report) throws IOException {
+        return new ParallelCsvImporter(ForkJoinPool.commonPool()).load(file, report);
+    }
+
+    /**
+     * Чтение CSV. Строки до заголовка из одного поля (шапка с датой сохранения)
+     * и сам заголовок пропускаются.
+     */
+    static void readCsv(Reader reader, GameColumns columns, ImportReport report) throws IOException {
+        readCsv(new CsvReader(reader), columns, report);
+    }
+
+    static void readCsv(CsvReader csv, GameColumns columns, ImportReport report) throws IOException {
+        readCsv(csv, columns, report, new CsvHeader());
+    }
+
+    /**
+     * Чтение записей с продолжением правила шапки header (файл читается частями)
+     */
+    static void readCsv(CsvReader csv, GameColumns columns, ImportReport report, CsvHeader header)
+            throws IOException {
+        while (csv.next()) {
+            if (!header.skip(csv)) {
+                readCsvRecord(csv, columns, report);
+            }
+        }
+    }
+
+    /**
+     * Правило начала данных CSV, общее для загрузки и перечитывания файла:
+     * до первой записи с данными пропускаются строки из одного поля (шапка
+     * с датой сохранения) и заголовок "Title,..."; после неё такие строки -
+     * обычные записи (игра с названием "Title", ошибка формата)
+     */
+    static final class CsvHeader {
+        private boolean dataStarted;
+
+        /**
+         * true - запись не игра: пустая строка или строка шапки
+         */
+        boolean skip(CsvReader csv) {
+            if (csv.isBlank()) {
+                return true;
+            }
+            if (!dataStarted && (csv.fieldCount() == 1 || csv.field(0).equalsIgnoreCase("Title"))) {
+                dataStarted = csv.fieldCount() > 1;
+                return true;
+            }
+            dataStarted = true;
+            return false;
+        }
+
+        boolean dataStarted() { return dataStarted; }
+    }
+
+    /**
+     * Одна запись CSV в колонки каталога
+     */
+    static void readCsvRecord(CsvReader csv, GameColumns columns, ImportReport report) {
+        if (csv.error() != null) {
+            report.error(csv.recordLine(), csv.error());
+            return;
+        }
+        if (csv.fieldCount() < 6) {
+            report.error(csv.recordLine(), "ожидается 6 полей, получено " + csv.fieldCount());
+            return;
+        }
+        try {
+            Game.Genre genre = parseGenre(csv.field(1));
+            int year = Integer.parseInt(csv.field(2));
+            double rating = Double.parseDouble(csv.field(3));
+            columns.appendNew(csv.field(0), genre, year, GameColumns.toTenths(rating),
+                    csv.pooledField(4), csv.pooledField(5));
+            report.rowLoaded();
+        } catch (IllegalArgumentException e) {
+            report.error(csv.recordLine(), "некорректное значение: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Чтение JSON: массив объектов игр или объект с массивом в поле "games"
+     * (так отвечает HTTP-сервер каталога). Игра с некорректными полями
+     * пропускается и попадает в report; нарушение синтаксиса JSON прерывает чтение.
+     */
+    static void readJson(JsonReader json, GameColumns columns, ImportReport report) throws IOException {
+        JsonReader.Token token = json.next();
+        if (token == JsonReader.Token.BEGIN_OBJECT) {
+            while (json.next() != JsonReader.Token.END_OBJECT) {
+                if (!json.textEquals("games")) {
+                    json.skipValue();
+                    continue;
+                }
+                if (json.next() != JsonReader.Token.BEGIN_ARRAY) {
+                    throw new IOException("JSON, строка " + json.line() + ": поле games должно быть массивом");
+                }
+                readJsonGames(json, columns, report);
+            }
+        } else if (token == JsonReader.Token.BEGIN_ARRAY) {
+            readJsonGames(json, columns, report);
+        } else {
+            throw new IOException("JSON, строка " + json.line() + ": ожидается массив игр");
+        }
+        json.next();
+    }
+
+    private static void readJsonGames(JsonReader json, GameColumns columns, ImportReport report)
+            throws IOException {
+        JsonReader.Token token;
+        while ((token = json.next()) != JsonReader.Token.END_ARRAY) {
+            if (token != JsonReader.Token.BEGIN_OBJECT) {
+                report.error(json.line(), "ожидается объект игры");
+                json.skipRest(token);
+                continue;
+            }
+            readJsonGame(json, columns, report);
+        }
+    }
+
+    /**
+     * Поля одной игры разбираются по мере чтения; неизвестные поля пропускаются
+     */
+    private static void readJsonGame(JsonReader json, GameColumns columns, ImportReport report)
+            throws IOException {
+        long line = json.line();
+        long[] id = null;
+        String title = null, developer = null, platform = null;
+        Game.Genre genre = null;
+        int year = 0, tenths = 0;
+        int seen = 0;
+        String problem = null;
+        while (json.next() != JsonReader.Token.END_OBJECT) {
+            int field = JSON_FIELDS.length - 1;
+            while (field >= 0 && !json.textEquals(JSON_FIELDS[field])) {
+                field--;
+            }
+            if (field < 0) {
+                json.skipValue();
+                continue;
+            }
+            JsonReader.Token value = json.next();
+            if (value != JsonReader.Token.STRING && value != JsonReader.Token.NUMBER) {
+                problem = "поле " + JSON_FIELDS[field] + " должно быть строкой или числом";
+                json.skipRest(value);
+                continue;
+            }
+            seen |= 1 << field;
+            try {
+                switch (field) {
+                    case 0 -> {
+                        id = new long[2];
+                        // Другой идентификатор пришлось бы заменить, и файл сохранился бы с чужим
+                        if (!json.uuidValue(id)) {
+                            problem = "идентификатор должен быть UUID: " + json.string();
+                        }
+                    }
+                    case 1 -> title = json.string();
+                    case 2 -> genre = jsonGenre(json);
+                    case 3 -> year = json.intValue();
+                    case 4 -> tenths = json.tenthsValue();
+                    case 5 -> developer = json.pooledString();
+                    default -> platform = json.pooledString();
+                }
+            } catch (IllegalArgumentException e) {
+                problem = "некорректное значение: " + e.getMessage();
+            }
+        }
+        // Без идентификатора игра получит новый; остальные поля обязательны
+        for (int field = 1; field < JSON_FIELDS.length && problem == null; field++) {
+            if ((seen & 1 << field) == 0) {
+                problem = "нет поля " + JSON_FIELDS[field];
+            }
+        }
+        if (problem != null) {
+            report.error(line, problem);
+            return;
+        }
+        try {
+            if (id == null) {
+                columns.appendNew(title, genre, year, tenths, developer, platform);
+            } else {
+                columns.append(id[0], id[1], title, genre, year, tenths, developer, platform);
+            }
+            report.rowLoaded();
+        } catch (IllegalArgumentException e) {
+            report.error(line, e.getMessage());
+        }
+    }
+
+    /**
+     * Жанр в написании файлов сравнивается без создания строки
+     */
+    private static Game.Genre jsonGenre(JsonReader json) {
+        for (Game.Genre genre : Game.Genre.values()) {
+            if (json.textEquals(CatalogExporter.genreName(genre))) {
+                return genre;
+            }
+        }
+        return parseGenre(json.string());
+    }
+
+    /**
+     * Чтение TXT в формате, который пишет сохранение каталога
+     */
+    static void readTxt(BufferedReader reader, GameColumns columns, ImportReport report) throws IOException {
+        String title = "", developer = "", platform = "";
+        Game.Genre genre = Game.Genre.ACTION_RPG;
+        int year = 2020;
+        double rating = 5.0;
+        boolean readingGame = false;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+
+            if (TXT_GAME_LINE.matcher(line).matches()) {
+                // Новая игра
+                if (readingGame && !title.isEmpty()) {
+                    columns.appendNew(title, genre, year, GameColumns.toTenths(rating), developer, platform);
+                    report.rowLoaded();
+                }
+
+                title = line.substring(line.indexOf('.') + 1).trim();
+                readingGame = true;
+            } else if (line.startsWith("Жанр:") && readingGame) {
+                genre = parseGenre(line.substring(5));
+            } else if (line.startsWith("Год выпуска:") && readingGame) {
+                try {
+                    year = Integer.parseInt(line.substring(12).trim());
+                } catch (NumberFormatException e) {
+                    year = 2020;
+                }
+            } else if (line.startsWith("Рейтинг:") && readingGame) {
+                try {
+                    String ratingStr = line.substring(8).trim().split("/")[0].trim();
+                    rating = Double.parseDouble(ratingStr);
+                } catch (Exception e) {
+                    rating = 5.0;
+                }
+            } else if (line.startsWith("Разработчик:") && readingGame) {
+                developer = StringPool.SHARED.intern(line.substring(12).trim());
+            } else if (line.startsWith("Платформа:") && readingGame) {
+                platform = StringPool.SHARED.intern(line.substring(10).trim());
+            }
+        }
+
+        // Добавляем последнюю игру
+        if (!title.isEmpty()) {
+            columns.appendNew(title, genre, year, GameColumns.toTenths(rating), developer, platform);
+            report.rowLoaded();
+        }
+    }
+
+    /**
+     * Жанр в написании таблицы и файлов ("Action/RPG") или имени константы
+     */
+    static Game.Genre parseGenre(String text) {
+        return Game.Genre.valueOf(text.trim().toUpperCase().replace("/", "_"));
+    }
+}
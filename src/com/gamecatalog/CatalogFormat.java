@@ -0,0 +1,29 @@
+package com.gamecatalog;
+
+/**
+ * Форматы файлов каталога
+ */
+public enum CatalogFormat {
+    TXT("txt"), CSV("csv"), BINARY("gcat"), JSON("json");
+
+    private final String extension;
+
+    CatalogFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() { return extension; }
+
+    /**
+     * Формат по расширению имени файла; без известного расширения - TXT
+     */
+    public static CatalogFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase();
+        for (CatalogFormat format : values()) {
+            if (lower.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        return TXT;
+    }
+}
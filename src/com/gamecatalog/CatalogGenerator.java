@@ -0,0 +1,234 @@
+package com.gamecatalog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических каталогов для нагрузочных проверок.
+ * Одно и то же зерно даёт одну и ту же последовательность игр.
+ * Разработчики и платформы распределены по закону Ципфа (немногие
+ * встречаются часто), годы сгущаются вокруг последнего десятилетия,
+ * рейтинги - вокруг 7. Названия бывают длинными, с кавычками, запятыми
+ * и кириллицей. Игры выдаются по одной, поэтому размер каталога
+ * ограничен только местом на диске.
+ */
+public final class CatalogGenerator {
+    private static final Game.Genre[] GENRES = Game.Genre.values();
+    // Доли жанров ACTION, RPG, ACTION_RPG
+    private static final double[] GENRE_WEIGHTS = {0.3, 0.25, 0.45};
+    private static final double ZIPF_EXPONENT = 1.1;
+    // Число разработчиков не зависит от размера каталога, чтобы каталог
+    // меньшего размера совпадал с началом большего
+    private static final int DEVELOPERS = 200_000;
+
+    private static final String[] WORDS = {
+            "Dark", "Souls", "Legend", "Dragon", "Age", "Shadow", "Blood", "Ring", "Night", "Fallen",
+            "Kingdom", "Wild", "Hunt", "Eternal", "Iron", "Storm", "Lost", "Empire", "Curse", "Crown",
+            "Тёмные", "Души", "Легенда", "Дракона", "Эпоха", "Тень", "Кровь", "Кольцо", "Ночь", "Падший",
+            "Королевство", "Дикая", "Охота", "Вечный", "Железо", "Буря", "Забытый", "Империя", "Проклятие", "Корона"
+    };
+    private static final String[] STUDIO_PREFIXES = {
+            "Red", "Blue", "Silver", "Northern", "Iron", "Crystal", "Night", "Ember", "Studio", "Bright",
+            "Северная", "Студия", "Мастерская", "Красная", "Тихая"
+    };
+    private static final String[] STUDIO_SUFFIXES = {
+            "Games", "Studios", "Interactive", "Entertainment", "Software", "Works", "Digital", "Labs",
+            "Игры", "Студия", "Софт"
+    };
+    private static final String[] PLATFORM_NAMES = {
+            "PC", "PS4", "PS5", "Xbox One", "Xbox Series X", "Nintendo Switch", "PS3", "Xbox 360", "Mac", "Linux"
+    };
+
+    /**
+     * Получатель сгенерированных игр
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void game(String title, Game.Genre genre, int year, int ratingTenths,
+                  String developer, String platform) throws IOException;
+    }
+
+    private final long seed;
+
+    public CatalogGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Выдача count игр получателю
+     */
+    public void generate(long count, Sink sink) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] developers = new String[DEVELOPERS];
+        String[] platforms = platformCombinations();
+        Zipf developerRank = new Zipf(DEVELOPERS);
+        Zipf platformRank = new Zipf(platforms.length);
+        StringBuilder title = new StringBuilder(128);
+
+        for (long i = 0; i < count; i++) {
+            int developer = developerRank.next(random);
+            if (developers[developer] == null) {
+                developers[developer] = developerName(developer);
+            }
+            sink.game(title(random, title, i), genre(random), year(random), rating(random),
+                    developers[developer], platforms[platformRank.next(random)]);
+        }
+    }
+
+    /**
+     * Потоковая запись count игр в CSV, TXT или JSON
+     */
+    public void write(long count, Writer out, CatalogFormat format, boolean includeHeader) throws IOException {
+        if (format == CatalogFormat.BINARY) {
+            throw new IllegalArgumentException("двоичный каталог записывается через колонки");
+        }
+        CatalogExporter exporter = new CatalogExporter(out);
+        if (format == CatalogFormat.JSON) {
+            // Игры без идентификаторов: их выдаст загрузка
+            exporter.beginJsonArray();
+            generate(count, exporter::writeJsonRow);
+            exporter.endJsonArray();
+            exporter.flush();
+            return;
+        }
+        if (includeHeader) {
+            exporter.writeBanner(count);
+        }
+        if (format == CatalogFormat.CSV) {
+            exporter.writeCsvHeader();
+            generate(count, exporter::writeCsvRow);
+        } else {
+            long[] number = {0};
+            generate(count, (title, genre, year, rating, developer, platform) ->
+                    exporter.writeTxtRow(++number[0], title, genre, year, rating, developer, platform));
+        }
+        exporter.flush();
+    }
+
+    /**
+     * Колонки каталога из count игр
+     */
+    public GameColumns columns(int count) {
+        GameColumns columns = new GameColumns();
+        try {
+            generate(count, columns::appendNew);
+        } catch (IOException e) {
+            // Запись в колонки не выполняет ввода-вывода
+            throw new IllegalStateException(e);
+        }
+        return columns;
+    }
+
+    /**
+     * Замена содержимого хранилища сгенерированным каталогом
+     */
+    public void fill(CatalogStore store, int count) {
+        store.replaceAll(columns(count));
+    }
+
+    /**
+     * Номер от 0 до n - 1 с вероятностью, убывающей как 1 / (k + 1)^s
+     * (обратная функция непрерывного приближения распределения Ципфа)
+     */
+    private static final class Zipf {
+        private static final double POWER = 1 - ZIPF_EXPONENT;
+        private final int n;
+        private final double scale;
+
+        Zipf(int n) {
+            this.n = n;
+            this.scale = Math.pow(n + 1, POWER) - 1;
+        }
+
+        int next(SplittableRandom random) {
+            double x = Math.pow(scale * random.nextDouble() + 1, 1 / POWER);
+            return Math.min(n - 1, (int) x - 1);
+        }
+    }
+
+    private static Game.Genre genre(SplittableRandom random) {
+        double u = random.nextDouble();
+        for (int i = 0; i < GENRE_WEIGHTS.length - 1; i++) {
+            u -= GENRE_WEIGHTS[i];
+            if (u < 0) {
+                return GENRES[i];
+            }
+        }
+        return GENRES[GENRE_WEIGHTS.length - 1];
+    }
+
+    /**
+     * Год: три четверти игр около 2016, остальные равномерно с 1985
+     */
+    private static int year(SplittableRandom random) {
+        if (random.nextInt(4) == 0) {
+            return 1985 + random.nextInt(41);
+        }
+        int year = (int) Math.round(2016 + gaussian(random) * 5);
+        return Math.max(1985, Math.min(2025, year));
+    }
+
+    private static int rating(SplittableRandom random) {
+        int tenths = (int) Math.round(70 + gaussian(random) * 13);
+        return Math.max(0, Math.min(100, tenths));
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Преобразование Бокса - Мюллера
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /**
+     * Название из 1-8 слов; иногда с подзаголовком, кавычками, запятой или номером части
+     */
+    private static String title(SplittableRandom random, StringBuilder title, long index) {
+        title.setLength(0);
+        int words = 1 + random.nextInt(random.nextInt(10) == 0 ? 8 : 3);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        switch (random.nextInt(20)) {
+            case 0 -> title.append(": ").append(WORDS[random.nextInt(WORDS.length)])
+                    .append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            case 1 -> title.append(" \"").append(WORDS[random.nextInt(WORDS.length)]).append('"');
+            case 2 -> title.append(", ").append(WORDS[random.nextInt(WORDS.length)]);
+            case 3 -> title.append(' ').append(2 + random.nextInt(5));
+            default -> { }
+        }
+        // Номер делает названия различными, как в настоящем каталоге
+        return title.append(" #").append(index + 1).toString();
+    }
+
+    private static String developerName(int index) {
+        String prefix = STUDIO_PREFIXES[index % STUDIO_PREFIXES.length];
+        String suffix = STUDIO_SUFFIXES[(index / STUDIO_PREFIXES.length) % STUDIO_SUFFIXES.length];
+        int round = index / (STUDIO_PREFIXES.length * STUDIO_SUFFIXES.length);
+        return round == 0 ? prefix + " " + suffix : prefix + " " + suffix + " " + (round + 1);
+    }
+
+    /**
+     * Сочетания платформ: сначала одиночные, затем пары и тройки
+     */
+    private static String[] platformCombinations() {
+        int n = PLATFORM_NAMES.length;
+        String[] combinations = new String[n + n * (n - 1) / 2 + n - 2];
+        int k = 0;
+        for (String name : PLATFORM_NAMES) {
+            combinations[k++] = name;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                combinations[k++] = PLATFORM_NAMES[i] + "/" + PLATFORM_NAMES[j];
+            }
+        }
+        for (int i = 0; i < n - 2; i++) {
+            combinations[k++] = PLATFORM_NAMES[i] + "/" + PLATFORM_NAMES[i + 1] + "/" + PLATFORM_NAMES[i + 2];
+        }
+        return combinations;
+    }
+}
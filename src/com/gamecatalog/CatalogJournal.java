@@ -0,0 +1,600 @@
+package com.gamecatalog;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений каталога с восстановлением после сбоя.
+ * Добавление, изменение и удаление игры дописывают в конец журнала одну
+ * небольшую запись (длина, CRC32, тип, данные). Записи копятся в очереди,
+ * отдельный поток пишет всё накопившееся одним вызовом и одним fsync
+ * (групповая фиксация).
+ * Состояние каталога - последний снимок (snapshot-N.gcat) плюс сегменты
+ * журнала начиная с N. Когда журнал разрастается, новый снимок пишется
+ * в фоне, после чего старые сегменты и снимки удаляются.
+ * Повтор журнала идёт до первой повреждённой или оборванной записи: более
+ * поздние записи без пропущенных применять нельзя (потерялись бы удаления
+ * и правки), поэтому после обрыва сразу пишется новый снимок.
+ */
+public final class CatalogJournal implements CatalogListener, Closeable {
+    static final int SEGMENT_MAGIC = 0x474A4E4C; // "GJNL"
+    static final short VERSION = 1;
+    // Сегмент начинается с нового снимка и не продолжает предыдущие
+    private static final short FLAG_BASELINE = 1;
+    private static final byte UPSERT = 1;
+    private static final byte DELETE = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".gcat";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final Object STOP = new Object();
+
+    private record Rotate(long segment, boolean baseline) { }
+    private record Cleanup(long segment) { }
+    // Итог повтора сегмента: complete = false - дальше повторять нельзя
+    private record Replay(long applied, boolean complete) { }
+
+    private final CatalogStore store;
+    private final Path directory;
+    private final long compactBytes;
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService compactor =
+            Executors.newSingleThreadExecutor(CatalogExecutors.daemonFactory("catalog-compaction"));
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final CRC32 crc = new CRC32(); // только под блокировкой записи каталога
+    private final Thread writer;
+
+    // Номер сегмента для новых записей; меняется под блокировкой каталога
+    private long segment;
+
+    // Состояние потока записи
+    private FileChannel channel;
+    private long segmentBytes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    // Элементы очереди: поставленные и уже записанные на диск
+    private final AtomicLong enqueued = new AtomicLong();
+    private long durable;
+    private volatile IOException failure;
+    // Кому сообщить об отключении журнала; под блокировкой this
+    private Consumer<IOException> failureHandler;
+
+    private final long replayed;
+    private final boolean recovered;
+
+    private CatalogJournal(CatalogStore store, Path directory, long compactBytes,
+                           long lastSegment, long replayed, boolean recovered) {
+        this.store = store;
+        this.directory = directory;
+        this.compactBytes = compactBytes;
+        this.segment = lastSegment;
+        this.replayed = replayed;
+        this.recovered = recovered;
+        this.writer = CatalogExecutors.daemonFactory("catalog-journal").newThread(this::writeLoop);
+    }
+
+    /**
+     * Каталог данных по умолчанию: свойство gamecatalog.dataDir или ~/.gamecatalog
+     */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty("gamecatalog.dataDir");
+        return configured != null ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".gamecatalog");
+    }
+
+    /**
+     * Восстановление каталога из снимка и журнала и подключение журнала к хранилищу.
+     * Если данных на диске нет, хранилище не трогается.
+     */
+    public static CatalogJournal open(CatalogStore store, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        deleteTemporary(directory);
+
+        TreeMap<Long, Path> snapshots = list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeMap<Long, Path> segments = list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        long base = snapshots.isEmpty() ? Long.MIN_VALUE : snapshots.lastKey();
+        GameColumns columns = base == Long.MIN_VALUE ? new GameColumns()
+                : BinaryCatalog.read(snapshots.get(base));
+
+        // Повтор сегментов после снимка. Его прерывают повреждённая запись
+        // и сегмент-начало без своего снимка (замена каталога, снимок которой
+        // не успел записаться)
+        long replayed = 0;
+        boolean interrupted = false;
+        for (var entry : segments.tailMap(base, true).entrySet()) {
+            Replay replay = replay(entry.getValue(), entry.getKey() != base, columns);
+            replayed += replay.applied();
+            if (!replay.complete()) {
+                interrupted = true;
+                break;
+            }
+        }
+
+        long last = Math.max(segments.isEmpty() ? 0 : segments.lastKey(), Math.max(base, 0));
+        boolean recovered = !snapshots.isEmpty() || replayed > 0;
+        if (interrupted) {
+            System.err.println("Повтор журнала остановлен, повторено записей: " + replayed);
+        }
+        CatalogJournal journal = new CatalogJournal(store, directory,
+                Long.getLong("gamecatalog.journal.compactBytes", 64L << 20), last, replayed, recovered);
+        if (recovered) {
+            store.replaceAll(columns);
+        }
+
+        store.writeLock().lock();
+        try {
+            store.addListener(journal);
+            if (interrupted) {
+                // Сегменты после точки обрыва не повторяются, поэтому новые записи
+                // должны опираться на свежий снимок
+                journal.snapshot(true);
+            } else {
+                journal.rotate(false);
+            }
+        } finally {
+            store.writeLock().unlock();
+        }
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Было ли что восстанавливать (снимок или записи журнала)
+     */
+    public boolean recovered() { return recovered; }
+
+    /**
+     * Число записей журнала, повторённых при открытии
+     */
+    public long replayed() { return replayed; }
+
+    /**
+     * handler получит ошибку записи, после которой журнал отключается и изменения
+     * больше не сохраняются; вызывается один раз, в потоке журнала или сразу,
+     * если журнал уже отключён
+     */
+    public void onFailure(Consumer<IOException> handler) {
+        IOException current;
+        synchronized (this) {
+            failureHandler = handler;
+            current = failure;
+        }
+        if (current != null) {
+            handler.accept(current);
+        }
+    }
+
+    @Override
+    public void rowAdded(int slot) {
+        enqueue(encodeUpsert(store.columns(), slot));
+    }
+
+    @Override
+    public void rowRemoved(int slot) {
+        GameColumns columns = store.columns();
+        ByteBuffer record = startRecord(1 + 16);
+        record.put(DELETE).putLong(columns.idHi(slot)).putLong(columns.idLo(slot));
+        enqueue(finishRecord(record));
+    }
+
+    @Override
+    public void rowUpdating(int slot) {
+        // Запись об изменении пишется целиком после обновления
+    }
+
+    @Override
+    public void rowUpdated(int slot) {
+        rowAdded(slot);
+    }
+
+    @Override
+    public void reset() {
+        // Уплотнение меняет только слоты, идентификаторы и данные те же
+    }
+
+    @Override
+    public void replaced() {
+        snapshot(true);
+    }
+
+    /**
+     * Ожидание, пока все изменения, сделанные до вызова, окажутся на диске
+     */
+    public void sync() throws IOException {
+        long target = enqueued.get();
+        synchronized (this) {
+            while (durable < target && failure == null && writer.isAlive()) {
+                try {
+                    wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("ожидание записи журнала прервано", e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Отключение от хранилища и запись оставшихся изменений и начатого снимка
+     * (без снимка сегмент-начало после замены каталога не повторится)
+     */
+    @Override
+    public void close() throws IOException {
+        store.removeListener(this);
+        enqueue(STOP);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Вызывается под блокировкой каталога: порядок в очереди совпадает с порядком изменений
+    private synchronized long rotate(boolean baseline) {
+        segment++;
+        enqueue(new Rotate(segment, baseline));
+        return segment;
+    }
+
+    /**
+     * Снимок текущего состояния; вызывается под блокировкой каталога.
+     * Колонки копируются сразу, а файл пишется в фоне.
+     */
+    private void snapshot(boolean baseline) {
+        GameColumns copy = store.columns().copy();
+        long number = rotate(baseline);
+        compactor.execute(() -> writeSnapshot(copy, number, baseline));
+    }
+
+    /**
+     * Без снимка уплотнения журнал остаётся полным, а без снимка сегмента-начала
+     * все дальнейшие изменения не повторятся: такая ошибка отключает журнал
+     */
+    private void writeSnapshot(GameColumns copy, long number, boolean baseline) {
+        try {
+            Path target = directory.resolve(SNAPSHOT_PREFIX + number + SNAPSHOT_SUFFIX);
+            Path temporary = directory.resolve(target.getFileName() + ".tmp");
+            BinaryCatalog.write(copy, temporary);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            enqueue(new Cleanup(number));
+        } catch (IOException e) {
+            if (baseline) {
+                fail(new IOException("снимок каталога не записан: " + e.getMessage(), e));
+            } else {
+                System.err.println("Не удалось записать снимок каталога: " + e.getMessage());
+            }
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    /**
+     * Фоновое уплотнение: новый снимок вместо разросшегося журнала
+     */
+    private void compact() {
+        store.readLock().lock();
+        try {
+            snapshot(false);
+        } catch (RuntimeException e) {
+            compacting.set(false);
+            throw e;
+        } finally {
+            store.readLock().unlock();
+        }
+    }
+
+    private void enqueue(Object item) {
+        if (failure != null) {
+            return;
+        }
+        enqueued.incrementAndGet();
+        queue.add(item);
+    }
+
+    private void writeLoop() {
+        List<Object> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                boolean stop = false;
+                for (Object item : batch) {
+                    if (item instanceof byte[] record) {
+                        write(record);
+                    } else if (item instanceof Rotate rotate) {
+                        openSegment(rotate.segment(), rotate.baseline());
+                    } else if (item instanceof Cleanup cleanup) {
+                        deleteBefore(cleanup.segment());
+                    } else if (item == STOP) {
+                        stop = true;
+                    }
+                }
+                flush();
+                if (channel != null) {
+                    channel.force(false);
+                }
+                markDurable(batch.size());
+                batch.clear();
+                if (stop) {
+                    break;
+                }
+                if (segmentBytes > compactBytes && compacting.compareAndSet(false, true)) {
+                    compactor.execute(this::compact);
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeChannel();
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        Consumer<IOException> handler;
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            failure = e;
+            handler = failureHandler;
+        }
+        // Ошибка снимка приходит из потока уплотнения: поток записи тоже останавливается
+        queue.add(STOP);
+        System.err.println("Журнал каталога отключён: " + e.getMessage());
+        if (handler != null) {
+            handler.accept(e);
+        }
+    }
+
+    private synchronized void markDurable(int count) {
+        durable += count;
+        notifyAll();
+    }
+
+    private void write(byte[] record) throws IOException {
+        if (record.length > buffer.remaining()) {
+            flush();
+        }
+        if (record.length > buffer.capacity()) {
+            ByteBuffer wrapped = ByteBuffer.wrap(record);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        } else {
+            buffer.put(record);
+        }
+        segmentBytes += record.length;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void openSegment(long number, boolean baseline) throws IOException {
+        flush();
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        Path file = directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(SEGMENT_MAGIC).putShort(VERSION).putShort(baseline ? FLAG_BASELINE : 0);
+        segmentBytes = 0;
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // Данные уже сброшены на диск
+        }
+    }
+
+    /**
+     * Удаление снимков и сегментов, которые перекрыты снимком number
+     */
+    private void deleteBefore(long number) throws IOException {
+        for (Path file : list(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(number).values()) {
+            Files.deleteIfExists(file);
+        }
+        for (Path file : list(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX).headMap(number).values()) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private ByteBuffer startRecord(int payloadSize) {
+        ByteBuffer record = ByteBuffer.allocate(8 + payloadSize);
+        record.position(8);
+        return record;
+    }
+
+    private byte[] finishRecord(ByteBuffer record) {
+        int payloadSize = record.position() - 8;
+        crc.reset();
+        crc.update(record.array(), 8, payloadSize);
+        record.putInt(0, payloadSize).putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    private byte[] encodeUpsert(GameColumns columns, int slot) {
+        byte[] title = columns.title(slot).getBytes(StandardCharsets.UTF_8);
+        byte[] developer = columns.developer(slot).getBytes(StandardCharsets.UTF_8);
+        byte[] platform = columns.platform(slot).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = startRecord(1 + 16 + 1 + 4 + 2 + 12 + title.length + developer.length + platform.length);
+        record.put(UPSERT).putLong(columns.idHi(slot)).putLong(columns.idLo(slot))
+                .put((byte) columns.genreOrdinal(slot)).putInt(columns.year(slot))
+                .putShort((short) columns.ratingTenths(slot));
+        record.putInt(title.length).put(title);
+        record.putInt(developer.length).put(developer);
+        record.putInt(platform.length).put(platform);
+        return finishRecord(record);
+    }
+
+    /**
+     * Повтор записей сегмента. Повтор не полон, если сегмент начинает новую
+     * последовательность (stopAtBaseline) или в нём есть повреждённая либо
+     * оборванная запись: записи после неё и следующие сегменты не применяются.
+     */
+    private static Replay replay(Path file, boolean stopAtBaseline, GameColumns columns) throws IOException {
+        Game.Genre[] genres = Game.Genre.values();
+        CRC32 crc = new CRC32();
+        long applied = 0;
+        long remaining = Files.size(file) - 8;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SEGMENT_MAGIC || in.readShort() != VERSION) {
+                System.err.println("Сегмент журнала неизвестного формата: " + file.getFileName());
+                return new Replay(0, false);
+            }
+            short flags = in.readShort();
+            if (stopAtBaseline && (flags & FLAG_BASELINE) != 0) {
+                return new Replay(0, false);
+            }
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return new Replay(applied, remaining == 0);
+                }
+                int checksum = in.readInt();
+                remaining -= 8;
+                // Длина проверяется до выделения памяти: мусор вместо длины
+                // не должен выделять гигабайты
+                if (length < 17 || length > remaining) {
+                    throw new IOException("неверная длина записи " + length);
+                }
+                remaining -= length;
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                in.readFully(payload, 0, length);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    throw new IOException("контрольная сумма не совпадает");
+                }
+                ByteBuffer record = ByteBuffer.wrap(payload, 0, length);
+                byte type = record.get();
+                long hi = record.getLong();
+                long lo = record.getLong();
+                int slot = columns.find(hi, lo);
+                if (type == DELETE) {
+                    if (slot >= 0) {
+                        columns.remove(slot);
+                        if (columns.needsCompaction()) {
+                            columns.compact();
+                        }
+                    }
+                } else if (type == UPSERT) {
+                    int genre = record.get();
+                    if (genre < 0 || genre >= genres.length) {
+                        throw new IOException("неверный жанр");
+                    }
+                    int year = record.getInt();
+                    int rating = record.getShort();
+                    String title = getString(record);
+                    String developer = getString(record);
+                    String platform = getString(record);
+                    if (slot >= 0) {
+                        columns.set(slot, title, genres[genre], year, rating, developer, platform);
+                    } else {
+                        columns.append(hi, lo, title, genres[genre], year, rating, developer, platform);
+                    }
+                } else {
+                    throw new IOException("неизвестный тип записи " + type);
+                }
+                applied++;
+            }
+        } catch (EOFException e) {
+            System.err.println("Оборванная запись в " + file.getFileName() + ", повтор остановлен");
+            return new Replay(applied, false);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Повреждённая запись в " + file.getFileName() + ", повтор остановлен: "
+                    + e.getMessage());
+            return new Replay(applied, false);
+        }
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    /**
+     * Файлы вида prefix + номер + suffix, упорядоченные по номеру
+     */
+    private static TreeMap<Long, Path> list(Path directory, String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                try {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), file);
+                } catch (NumberFormatException e) {
+                    // Посторонний файл
+                }
+            }
+        }
+        return files;
+    }
+
+    private static void deleteTemporary(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path file : stream) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.gamecatalog;
+
+/**
+ * Получатель изменений каталога (индексы, статистика и т.п.).
+ * Вызывается хранилищем сразу после или перед изменением слота.
+ */
+interface CatalogListener {
+    /**
+     * Игра добавлена в слот
+     */
+    void rowAdded(int slot);
+
+    /**
+     * Игра будет удалена; данные слота ещё доступны
+     */
+    void rowRemoved(int slot);
+
+    /**
+     * Данные слота будут перезаписаны
+     */
+    default void rowUpdating(int slot) { rowRemoved(slot); }
+
+    /**
+     * Данные слота перезаписаны
+     */
+    default void rowUpdated(int slot) { rowAdded(slot); }
+
+    /**
+     * Каталог заменён или уплотнён - слоты изменились, нужно перестроение
+     */
+    void reset();
+
+    /**
+     * Содержимое каталога заменено целиком (загрузка, очистка)
+     */
+    default void replaced() { reset(); }
+}
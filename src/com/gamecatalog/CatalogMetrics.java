@@ -0,0 +1,249 @@
+package com.gamecatalog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики операций каталога: число вызовов, гистограмма длительностей
+ * (p50, p99, максимум), просмотренные и найденные строки, прочитанные
+ * и записанные байты. Запись - несколько атомарных сложений без блокировок,
+ * поэтому замер можно оставлять включённым всегда. Каждая операция также
+ * выдаётся событием JFR (OperationEvent).
+ */
+final class CatalogMetrics {
+    /**
+     * Замеряемые операции; имя - как метод окна, который их выполняет
+     */
+    enum Operation {
+        FILTER("filterGames"),
+        UPDATE_TABLE("updateTable"),
+        STATISTICS("updateStatistics"),
+        LOAD("loadFromFile"),
+        SAVE("saveToFile"),
+        HTTP_QUERY("HTTP /games"),
+        FILE_RELOAD("слежение за файлом");
+
+        private final String title;
+
+        Operation(String title) {
+            this.title = title;
+        }
+
+        String title() { return title; }
+    }
+
+    private static final Counters[] COUNTERS = new Counters[Operation.values().length];
+    // Меняется при каждой записи: панель перерисовывается, только если были новые замеры
+    private static final AtomicLong version = new AtomicLong();
+
+    static {
+        for (int i = 0; i < COUNTERS.length; i++) {
+            COUNTERS[i] = new Counters();
+        }
+    }
+
+    private CatalogMetrics() {
+    }
+
+    /**
+     * Начало замера операции; итог записывается в Sample.finish()
+     */
+    static Sample start(Operation operation) {
+        return new Sample(operation);
+    }
+
+    static long version() { return version.get(); }
+
+    /**
+     * Замер одной операции. Не потокобезопасен: начинается и заканчивается в одном потоке.
+     */
+    static final class Sample {
+        private final Operation operation;
+        private final long started = System.nanoTime();
+        private final OperationEvent event = new OperationEvent();
+        private long rowsScanned;
+        private long rowsMatched;
+        private long bytesRead;
+        private long bytesWritten;
+
+        private Sample(Operation operation) {
+            this.operation = operation;
+            event.begin();
+        }
+
+        Sample rows(long scanned, long matched) {
+            rowsScanned += scanned;
+            rowsMatched += matched;
+            return this;
+        }
+
+        Sample bytesRead(long bytes) {
+            bytesRead += bytes;
+            return this;
+        }
+
+        Sample bytesWritten(long bytes) {
+            bytesWritten += bytes;
+            return this;
+        }
+
+        void finish() {
+            long nanos = System.nanoTime() - started;
+            Counters counters = COUNTERS[operation.ordinal()];
+            counters.calls.increment();
+            counters.latency.record(nanos);
+            counters.rowsScanned.add(rowsScanned);
+            counters.rowsMatched.add(rowsMatched);
+            counters.bytesRead.add(bytesRead);
+            counters.bytesWritten.add(bytesWritten);
+            version.incrementAndGet();
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.title();
+                event.rowsScanned = rowsScanned;
+                event.rowsMatched = rowsMatched;
+                event.bytesRead = bytesRead;
+                event.bytesWritten = bytesWritten;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class Counters {
+        final LongAdder calls = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder rowsScanned = new LongAdder();
+        final LongAdder rowsMatched = new LongAdder();
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder bytesWritten = new LongAdder();
+    }
+
+    /**
+     * Гистограмма длительностей в наносекундах: на каждую степень двойки
+     * SUB_BUCKETS корзин, то есть погрешность перцентиля не больше 1/SUB_BUCKETS
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            nanos = Math.max(1, nanos);
+            counts.incrementAndGet(bucket(nanos));
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        static int bucket(long nanos) {
+            int power = 63 - Long.numberOfLeadingZeros(nanos);
+            if (power < SUB_BITS) {
+                return (int) nanos;
+            }
+            // Старший бит задаёт степень, следующие SUB_BITS - корзину внутри неё
+            int sub = (int) (nanos >>> (power - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (power - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * Верхняя граница корзины - значение, которое показывается для перцентиля
+         */
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int power = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (power - SUB_BITS)) - 1;
+        }
+
+        long count() {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        /**
+         * Длительность, которую не превысила доля fraction замеров; 0 - замеров нет
+         */
+        long percentile(double fraction) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * fraction));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        long max() { return max.get(); }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            max.set(0);
+        }
+    }
+
+    /**
+     * Снимок всех счётчиков текстом - для панели и для выгрузки в файл
+     */
+    static String report() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-20s %8s %9s %9s %9s %12s %12s %10s %10s%n", "Операция", "вызовов",
+                "p50, мс", "p99, мс", "макс, мс", "просмотрено", "найдено", "прочитано", "записано"));
+        for (Operation operation : Operation.values()) {
+            Counters counters = COUNTERS[operation.ordinal()];
+            long calls = counters.calls.sum();
+            if (calls == 0) {
+                text.append(String.format("%-20s %8d%n", operation.title(), 0));
+                continue;
+            }
+            text.append(String.format("%-20s %8d %9s %9s %9s %12d %12d %10s %10s%n", operation.title(), calls,
+                    millis(counters.latency.percentile(0.5)), millis(counters.latency.percentile(0.99)),
+                    millis(counters.latency.max()), counters.rowsScanned.sum(), counters.rowsMatched.sum(),
+                    bytes(counters.bytesRead.sum()), bytes(counters.bytesWritten.sum())));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Обнуление счётчиков (например, перед замером на другом каталоге)
+     */
+    static void reset() {
+        for (Counters counters : COUNTERS) {
+            counters.calls.reset();
+            counters.latency.reset();
+            counters.rowsScanned.reset();
+            counters.rowsMatched.reset();
+            counters.bytesRead.reset();
+            counters.bytesWritten.reset();
+        }
+        version.incrementAndGet();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " Б";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f КБ", bytes / 1024.0);
+        }
+        return String.format("%.1f МБ", bytes / (1024.0 * 1024));
+    }
+}
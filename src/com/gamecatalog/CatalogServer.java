@@ -0,0 +1,305 @@
+package com.gamecatalog;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Встроенный HTTP-сервер запросов к каталогу для других программ на этой машине.
+ * Каждый запрос выполняется в своём виртуальном потоке (на Java до 21 - в пуле)
+ * и читает каталог под блокировкой чтения; запросы друг друга не ждут.
+ * Правка из окна ждёт, пока идущие запросы закончат выборку и проход
+ * по перестановке до конца своей страницы; ответ пишется уже без блокировки.
+ * <pre>
+ * GET /games?q=souls&amp;field=title&amp;genre=RPG&amp;year=2011&amp;minRating=8
+ *           &amp;fuzzy=true&amp;sort=rating&amp;order=desc&amp;offset=0&amp;limit=50&amp;format=json|csv
+ * GET /stats
+ * </pre>
+ * Страница отдаётся потоком; общее число найденных игр - в заголовке X-Total-Count
+ * (и в поле total ответа JSON). Нечёткий поиск (fuzzy=true) берёт не больше
+ * FUZZY_MATCHES лучших совпадений независимо от offset и листает их: total
+ * у него - число этих совпадений, то есть не больше FUZZY_MATCHES, а страницы
+ * с любой сортировкой продолжают друг друга.
+ */
+public final class CatalogServer implements Closeable {
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 1000;
+    // Сколько лучших совпадений нечёткого поиска можно пролистать
+    static final int FUZZY_MATCHES = 1000;
+    // Очередь входящих соединений: тысячи клиентов могут подключиться одновременно
+    private static final int BACKLOG = 4096;
+
+    private final CatalogStore store;
+    private final HttpServer server;
+    private final ExecutorService executor = CatalogExecutors.newTaskExecutor("catalog-http");
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private CatalogServer(CatalogStore store, InetSocketAddress address) throws IOException {
+        this.store = store;
+        this.server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/games", exchange -> handle(exchange, this::games));
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+    }
+
+    /**
+     * Запуск на локальном адресе; порт 0 - любой свободный (см. port())
+     */
+    public static CatalogServer start(CatalogStore store, int port) throws IOException {
+        CatalogServer catalogServer = new CatalogServer(store,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        catalogServer.server.start();
+        return catalogServer;
+    }
+
+    public int port() { return server.getAddress().getPort(); }
+
+    /**
+     * Ожидание остановки сервера (пакетный режим обслуживает запросы до завершения процесса)
+     */
+    public void await() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        stopped.countDown();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * Общая часть обработки: метод, параметры, ошибки запроса - 400
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendText(exchange, 405, "Поддерживаются только GET и HEAD");
+                return;
+            }
+            Map<String, String> parameters;
+            try {
+                parameters = parameters(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, "Некорректная строка запроса: " + e.getMessage());
+                return;
+            }
+            try {
+                handler.handle(exchange, parameters);
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Страница найденных игр: выборка и копия страницы под блокировкой чтения,
+     * запись ответа уже без неё
+     */
+    private void games(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        GameQuery query = GameQuery.of(genre(parameters.get("genre")), year(parameters.get("year")),
+                rating(parameters.get("minRating")), field(parameters.get("field")), parameters.get("q"));
+        boolean fuzzy = Boolean.parseBoolean(parameters.get("fuzzy"));
+        SortKey key = sortKey(parameters.get("sort"));
+        boolean descending = order(parameters.get("order"));
+        int offset = number(parameters.get("offset"), "offset", 0, Integer.MAX_VALUE, 0);
+        int limit = number(parameters.get("limit"), "limit", 0, MAX_LIMIT, DEFAULT_LIMIT);
+        boolean csv = format(parameters.get("format"));
+
+        GameColumns page;
+        int total;
+        CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.HTTP_QUERY);
+        store.readLock().lock();
+        try {
+            int[] slots;
+            if (fuzzy && query.hasText() && key == SortKey.CATALOG) {
+                // Один и тот же набор лучших совпадений для всех страниц
+                int[] ranked = store.fuzzySearch(query, FUZZY_MATCHES);
+                total = ranked.length;
+                slots = Arrays.copyOfRange(ranked, Math.min(offset, total), Math.min(offset + limit, total));
+            } else {
+                BitSet selected = fuzzy && query.hasText()
+                        ? toBitSet(store.fuzzySearch(query, FUZZY_MATCHES)) : query.select(store);
+                total = selected.cardinality();
+                slots = store.page(selected, total, key, descending, offset, limit);
+            }
+            page = store.columns().copy(slots);
+            sample.rows(store.size(), total);
+        } finally {
+            store.readLock().unlock();
+        }
+        sample.finish();
+
+        exchange.getResponseHeaders().set("Content-Type",
+                (csv ? "text/csv" : "application/json") + "; charset=utf-8");
+        exchange.getResponseHeaders().set("X-Total-Count", Integer.toString(total));
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        // Длина заранее неизвестна - ответ идёт частями
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        CatalogExporter exporter = new CatalogExporter(out);
+        if (csv) {
+            exporter.writeAll(page, CatalogFormat.CSV, false);
+        } else {
+            // Тот же массив игр, что в файле JSON, внутри объекта со сведениями о странице
+            out.write("{\"total\":" + total + ",\"offset\":" + offset + ",\"limit\":" + limit + ",\"games\":");
+            exporter.writeJsonArray(page);
+            exporter.flush();
+            out.write("}");
+        }
+        exporter.flush();
+    }
+
+    /**
+     * Статистика каталога - тот же отчёт, что в окне
+     */
+    private void stats(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        sendText(exchange, 200, store.statisticsReport());
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(status, head ? -1 : body.length);
+        if (!head) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static Game.Genre genre(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            return CatalogFiles.parseGenre(text);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("genre: неизвестный жанр '" + text + "'");
+        }
+    }
+
+    private static Integer year(String text) {
+        return text == null || text.isBlank() ? null : number(text, "year", 0, 9999, 0);
+    }
+
+    private static double rating(String text) {
+        if (text == null || text.isBlank()) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(text.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("minRating: ожидается число, получено '" + text + "'");
+        }
+    }
+
+    private static SearchField field(String text) {
+        if (text == null || text.isBlank()) {
+            return SearchField.TITLE;
+        }
+        try {
+            return SearchField.valueOf(text.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("field: ожидается title, developer или platform");
+        }
+    }
+
+    private static SortKey sortKey(String text) {
+        if (text == null || text.isBlank()) {
+            return SortKey.CATALOG;
+        }
+        try {
+            return SortKey.valueOf(text.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("sort: ожидается catalog, title, genre, year, rating, developer или platform");
+        }
+    }
+
+    private static boolean order(String text) {
+        if (text == null || text.isBlank() || text.equalsIgnoreCase("asc")) {
+            return false;
+        }
+        if (text.equalsIgnoreCase("desc")) {
+            return true;
+        }
+        throw new IllegalArgumentException("order: ожидается asc или desc");
+    }
+
+    /**
+     * true - CSV, false - JSON
+     */
+    private static boolean format(String text) {
+        if (text == null || text.isBlank() || text.equalsIgnoreCase("json")) {
+            return false;
+        }
+        if (text.equalsIgnoreCase("csv")) {
+            return true;
+        }
+        throw new IllegalArgumentException("format: ожидается json или csv");
+    }
+
+    private static int number(String text, String name, int min, int max, int fallback) {
+        if (text == null || text.isBlank()) {
+            return fallback;
+        }
+        try {
+            int value = Integer.parseInt(text.trim());
+            if (value < min || value > max) {
+                throw new IllegalArgumentException(name + ": допустимо от " + min + " до " + max);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + ": ожидается целое число, получено '" + text + "'");
+        }
+    }
+
+    private static BitSet toBitSet(int[] slots) {
+        BitSet set = new BitSet();
+        for (int slot : slots) {
+            set.set(slot);
+        }
+        return set;
+    }
+}
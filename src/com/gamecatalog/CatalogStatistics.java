@@ -0,0 +1,173 @@
+package com.gamecatalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Статистика каталога, которая поддерживается при каждом изменении.
+ * Сумма рейтингов, счётчики жанров и гистограмма годов меняются за O(1) или O(log n),
+ * а топ по рейтингу и крайние годы берутся из битовых индексов без сортировки.
+ */
+final class CatalogStatistics implements CatalogListener {
+    static final int TOP_SIZE = 3;
+
+    private final CatalogStore store;
+    private final BitmapIndex bitmapIndex;
+
+    private long ratingSum; // в десятых долях
+    private final int[] genreCounts = new int[Game.Genre.values().length];
+    private final int[] ratingCounts = new int[BitmapIndex.MAX_RATING + 1];
+    private final NavigableMap<Integer, Integer> yearCounts = new TreeMap<>();
+
+    CatalogStatistics(CatalogStore store, BitmapIndex bitmapIndex) {
+        this.store = store;
+        this.bitmapIndex = bitmapIndex;
+        reset();
+    }
+
+    @Override
+    public void rowAdded(int slot) {
+        GameColumns columns = store.columns();
+        ratingSum += columns.ratingTenths(slot);
+        genreCounts[columns.genreOrdinal(slot)]++;
+        ratingCounts[bucket(columns.ratingTenths(slot))]++;
+        yearCounts.merge(columns.year(slot), 1, Integer::sum);
+    }
+
+    @Override
+    public void rowRemoved(int slot) {
+        GameColumns columns = store.columns();
+        ratingSum -= columns.ratingTenths(slot);
+        genreCounts[columns.genreOrdinal(slot)]--;
+        ratingCounts[bucket(columns.ratingTenths(slot))]--;
+        yearCounts.computeIfPresent(columns.year(slot), (year, count) -> count == 1 ? null : count - 1);
+    }
+
+    @Override
+    public void reset() {
+        ratingSum = 0;
+        Arrays.fill(genreCounts, 0);
+        Arrays.fill(ratingCounts, 0);
+        yearCounts.clear();
+        GameColumns columns = store.columns();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            rowAdded(slot);
+        }
+    }
+
+    int count() { return store.columns().size(); }
+
+    double averageRating() {
+        int count = count();
+        return count > 0 ? ratingSum / 10.0 / count : 0.0;
+    }
+
+    int genreCount(Game.Genre genre) { return genreCounts[genre.ordinal()]; }
+
+    /**
+     * Число игр по годам, по убыванию года
+     */
+    NavigableMap<Integer, Integer> yearCounts() { return yearCounts.descendingMap(); }
+
+    /**
+     * Слоты k игр с наибольшим рейтингом; среди равных - в порядке каталога
+     */
+    int[] top(int k) {
+        int[] top = new int[Math.min(k, count())];
+        int filled = 0;
+        for (int rating = BitmapIndex.MAX_RATING; rating >= 0 && filled < top.length; rating--) {
+            if (ratingCounts[rating] == 0) {
+                continue;
+            }
+            BitSet bucket = bitmapIndex.ratingBucket(rating);
+            for (int slot = bucket.nextSetBit(0); slot >= 0 && filled < top.length; slot = bucket.nextSetBit(slot + 1)) {
+                top[filled++] = slot;
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Первая по порядку игра самого раннего года или -1
+     */
+    int oldest() {
+        return yearCounts.isEmpty() ? -1 : bitmapIndex.years().get(yearCounts.firstKey()).nextSetBit(0);
+    }
+
+    /**
+     * Первая по порядку игра самого позднего года или -1
+     */
+    int newest() {
+        return yearCounts.isEmpty() ? -1 : bitmapIndex.years().get(yearCounts.lastKey()).nextSetBit(0);
+    }
+
+    /**
+     * Текстовый отчёт для панели статистики
+     */
+    String report() {
+        store.readLock().lock();
+        try {
+            return format();
+        } finally {
+            store.readLock().unlock();
+        }
+    }
+
+    private String format() {
+        int totalGames = count();
+        if (totalGames == 0) {
+            return "Каталог пуст.";
+        }
+        GameColumns columns = store.columns();
+        StringBuilder stats = new StringBuilder();
+
+        stats.append("══════════════════════════════════════════════════════════\n");
+        stats.append("                СТАТИСТИКА КАТАЛОГА ИГР\n");
+        stats.append("══════════════════════════════════════════════════════════\n\n");
+
+        stats.append("📊 ОБЩАЯ СТАТИСТИКА:\n");
+        stats.append("   Всего игр в каталоге: ").append(totalGames).append("\n");
+        stats.append(String.format("   Средний рейтинг: %.2f/10.0\n\n", averageRating()));
+
+        stats.append("🎮 РАСПРЕДЕЛЕНИЕ ПО ЖАНРАМ:\n");
+        for (Game.Genre genre : Game.Genre.values()) {
+            int count = genreCount(genre);
+            double percentage = count * 100.0 / totalGames;
+            String bar = "■".repeat(Math.max(0, (int)(percentage / 3)));
+            stats.append(String.format("   %-12s: %d игр (%.1f%%) %s\n",
+                    genre.toString().replace("_", "/"), count, percentage, bar));
+        }
+        stats.append("\n");
+
+        stats.append("📅 РАСПРЕДЕЛЕНИЕ ПО ГОДАМ:\n");
+        for (Map.Entry<Integer, Integer> entry : yearCounts().entrySet()) {
+            stats.append(String.format("   %d: %d игр\n", entry.getKey(), entry.getValue()));
+        }
+        stats.append("\n");
+
+        stats.append("🏆 ТОП-3 ИГР ПО РЕЙТИНГУ:\n");
+        int[] topGames = top(TOP_SIZE);
+        for (int i = 0; i < topGames.length; i++) {
+            int slot = topGames[i];
+            stats.append(String.format("   %d. %s (рейтинг: %.1f/10.0)\n",
+                    i + 1, columns.title(slot), columns.rating(slot)));
+        }
+
+        // Самая старая и новая игра
+        int oldest = oldest(), newest = newest();
+        stats.append("\n");
+        stats.append("📈 ДОПОЛНИТЕЛЬНАЯ ИНФОРМАЦИЯ:\n");
+        stats.append(String.format("   Самая старая игра: %s (%d год)\n",
+                columns.title(oldest), columns.year(oldest)));
+        stats.append(String.format("   Самая новая игра: %s (%d год)\n",
+                columns.title(newest), columns.year(newest)));
+        return stats.toString();
+    }
+
+    private static int bucket(int ratingTenths) {
+        return Math.max(0, Math.min(BitmapIndex.MAX_RATING, ratingTenths));
+    }
+}
@@ -0,0 +1,428 @@
+package com.gamecatalog;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище каталога без графического интерфейса.
+ * Данные лежат в колонках (GameColumns); поиск, изменение и удаление игр
+ * выполняются по идентификатору за O(1).
+ * Изменения идут под блокировкой записи, запросы - под блокировкой чтения,
+ * поэтому искать можно из фоновых потоков.
+ */
+public class CatalogStore {
+    /**
+     * Пакет больше стольких изменений не вставляется в порядки сортировки
+     * и нечёткий индекс построчно: вставка в перестановку стоит O(n) на строку,
+     * поэтому они сбрасываются один раз и строятся заново при следующем запросе
+     */
+    static final int BULK_ROWS = 64;
+
+    /**
+     * Итог пакета изменений: сколько игр изменено, добавлено и удалено
+     */
+    public record Changes(int updated, int added, int removed) {
+    }
+
+    private volatile GameColumns columns = new GameColumns();
+    private final List<CatalogListener> listeners = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitmapIndex bitmapIndex;
+    private final TextIndex textIndex;
+    private final CatalogStatistics statistics;
+    private final SortIndex sortIndex;
+    private final FuzzyIndex fuzzyIndex;
+
+    public CatalogStore() {
+        bitmapIndex = new BitmapIndex(this);
+        textIndex = new TextIndex(this);
+        statistics = new CatalogStatistics(this, bitmapIndex);
+        sortIndex = new SortIndex(this);
+        fuzzyIndex = new FuzzyIndex(this);
+        listeners.add(bitmapIndex);
+        listeners.add(textIndex);
+        listeners.add(statistics);
+        listeners.add(sortIndex);
+        listeners.add(fuzzyIndex);
+    }
+
+    /**
+     * Добавление игры в конец каталога
+     */
+    public void add(Game game) {
+        lock.writeLock().lock();
+        try {
+            int slot = columns.append(game);
+            for (CatalogListener listener : listeners) {
+                listener.rowAdded(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск игры по идентификатору
+     */
+    public Game get(String id) {
+        lock.readLock().lock();
+        try {
+            int slot = columns.find(id);
+            return slot < 0 ? null : columns.game(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Замена данных игры с тем же идентификатором
+     */
+    public boolean update(Game game) {
+        lock.writeLock().lock();
+        try {
+            int slot = columns.find(game.getId());
+            if (slot < 0) {
+                return false;
+            }
+            for (CatalogListener listener : listeners) {
+                listener.rowUpdating(slot);
+            }
+            columns.set(slot, game);
+            for (CatalogListener listener : listeners) {
+                listener.rowUpdated(slot);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаление игры по идентификатору
+     */
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            int slot = columns.find(id);
+            if (slot < 0) {
+                return false;
+            }
+            for (CatalogListener listener : listeners) {
+                listener.rowRemoved(slot);
+            }
+            columns.remove(slot);
+
+            // Уплотняем, когда удалённых больше, чем живых
+            if (columns.needsCompaction()) {
+                columns.compact();
+                fireReset();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Пакет изменений под одной блокировкой записи: updates заменяют игры
+     * с теми же идентификаторами, additions добавляются, removals (идентификаторы)
+     * удаляются. Запросы видят либо состояние до пакета, либо после.
+     */
+    public Changes apply(List<Game> updates, List<Game> additions, List<String> removals) {
+        lock.writeLock().lock();
+        try {
+            if (updates.size() + additions.size() + removals.size() > BULK_ROWS) {
+                sortIndex.reset();
+                fuzzyIndex.reset();
+            }
+            int updated = 0;
+            for (Game game : updates) {
+                if (update(game)) {
+                    updated++;
+                }
+            }
+            for (Game game : additions) {
+                add(game);
+            }
+            int removed = 0;
+            for (String id : removals) {
+                if (remove(id)) {
+                    removed++;
+                }
+            }
+            return new Changes(updated, additions.size(), removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() { return columns.size(); }
+    public boolean isEmpty() { return columns.size() == 0; }
+
+    /**
+     * Колонки каталога для сканирования без создания объектов Game.
+     * Вне потока, который меняет каталог, читать их нужно под readLock().
+     */
+    public GameColumns columns() { return columns; }
+
+    /**
+     * Блокировка чтения для обхода колонок из фоновых потоков
+     */
+    public Lock readLock() { return lock.readLock(); }
+
+    /**
+     * Блокировка записи для действий, которые должны идти без изменений каталога
+     */
+    Lock writeLock() { return lock.writeLock(); }
+
+    /**
+     * Слоты игр, подходящих под фильтр по жанру, году и минимальному рейтингу.
+     * null в жанре или годе означает отсутствие ограничения.
+     */
+    public BitSet select(Game.Genre genre, Integer year, double minRating) {
+        lock.readLock().lock();
+        try {
+            return bitmapIndex.select(genre, year, GameColumns.toTenths(minRating));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Слоты из candidates, у которых поле содержит текст (без учёта регистра)
+     */
+    public BitSet search(SearchField field, String text, BitSet candidates) {
+        String needle = text.toLowerCase().trim();
+        if (needle.isEmpty()) {
+            return candidates;
+        }
+        lock.readLock().lock();
+        try {
+            return textIndex.search(field, needle, candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Фильтр каталога: жанр, год и минимальный рейтинг через битовые индексы,
+     * затем поиск текста в поле через триграммный индекс
+     */
+    public BitSet filter(Game.Genre genre, Integer year, double minRating, SearchField field, String text) {
+        return filter(GameQuery.of(genre, year, minRating, field, text));
+    }
+
+    /**
+     * Фильтр по готовому запросу; индексы читаются под одной блокировкой чтения
+     */
+    public BitSet filter(GameQuery query) {
+        lock.readLock().lock();
+        try {
+            Integer year = query.year() == GameQuery.ANY_YEAR ? null : query.year();
+            BitSet slots = bitmapIndex.select(query.genre(), year, query.minRatingTenths());
+            return query.hasText() ? textIndex.search(query.field(), query.needle(), slots) : slots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Нечёткий поиск: до limit игр, подходящих под жанр, год и рейтинг запроса,
+     * в названии (или у разработчика) которых есть все слова текста с опечатками.
+     * Лучшие идут первыми: меньше опечаток, затем выше рейтинг.
+     * Поиск по платформе нечётким не бывает - выполняется обычный.
+     */
+    public int[] fuzzySearch(GameQuery query, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer year = query.year() == GameQuery.ANY_YEAR ? null : query.year();
+            BitSet allowed = bitmapIndex.select(query.genre(), year, query.minRatingTenths());
+            if (query.field() == SearchField.PLATFORM) {
+                return textIndex.search(query.field(), query.needle(), allowed).stream().limit(limit).toArray();
+            }
+            return fuzzyIndex.search(query.field(), query.needle(), allowed, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Построение индекса нечёткого поиска заранее
+     */
+    public void prepareFuzzySearch() {
+        lock.readLock().lock();
+        try {
+            fuzzyIndex.prepare();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Слоты в порядке поля; порядки по полям поддерживаются при изменениях,
+     * поэтому сортировка сводится к проходу по готовой перестановке
+     */
+    public int[] sort(BitSet slots, SortKey key, boolean descending) {
+        lock.readLock().lock();
+        try {
+            return sortIndex.sort(slots, key, descending);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Строки таблицы из слотов в порядке поля; слоты выдаются окнами по мере прокрутки
+     */
+    public RowSource rows(BitSet slots, SortKey key, boolean descending) {
+        lock.readLock().lock();
+        try {
+            return sortIndex.rows(slots, key, descending);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Страница слотов в порядке поля: строки offset .. offset + count - 1 из total
+     * отобранных. Перестановка проходится только до конца страницы.
+     */
+    public int[] page(BitSet slots, int total, SortKey key, boolean descending, int offset, int count) {
+        lock.readLock().lock();
+        try {
+            return sortIndex.page(slots, total, key, descending, offset, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Построение порядков сортировки заранее (например, в фоне после загрузки)
+     */
+    public void prepareSort(SortKey... keys) {
+        lock.readLock().lock();
+        try {
+            for (SortKey key : keys) {
+                sortIndex.prepare(key);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Годы выпуска игр каталога по убыванию
+     */
+    public List<Integer> years() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(bitmapIndex.years().descendingKeySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Текстовый отчёт статистики; агрегаты поддерживаются при изменениях
+     */
+    public String statisticsReport() {
+        return statistics.report();
+    }
+
+    BitmapIndex bitmapIndex() { return bitmapIndex; }
+    CatalogStatistics statistics() { return statistics; }
+
+    /**
+     * Обход игр в порядке добавления
+     */
+    public void forEach(Consumer<Game> action) {
+        lock.readLock().lock();
+        try {
+            GameColumns columns = this.columns;
+            for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                action.accept(columns.game(slot));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Копия списка игр в порядке добавления
+     */
+    public List<Game> games() {
+        List<Game> result = new ArrayList<>(columns.size());
+        forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Полная замена содержимого каталога
+     */
+    public void replaceAll(Collection<Game> games) {
+        GameColumns loaded = new GameColumns();
+        for (Game game : games) {
+            loaded.append(game);
+        }
+        replaceAll(loaded);
+    }
+
+    /**
+     * Замена содержимого каталога уже заполненными колонками (загрузка из файла)
+     */
+    public void replaceAll(GameColumns loaded) {
+        lock.writeLock().lock();
+        try {
+            columns = loaded;
+            fireReplaced();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            columns = new GameColumns();
+            fireReplaced();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Подключение получателя изменений (например, журнала)
+     */
+    void addListener(CatalogListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeListener(CatalogListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void fireReset() {
+        for (CatalogListener listener : listeners) {
+            listener.reset();
+        }
+    }
+
+    private void fireReplaced() {
+        for (CatalogListener listener : listeners) {
+            listener.replaced();
+        }
+    }
+}
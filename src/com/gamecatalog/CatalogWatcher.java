@@ -0,0 +1,549 @@
+package com.gamecatalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+/**
+ * Слежение за файлом, из которого загружен каталог. После изменения файла
+ * считается разница по записям, и в хранилище попадают только добавленные,
+ * изменённые и удалённые игры; индексы, статистика и порядки сортировки
+ * обновляются через слушателей хранилища, как при правке вручную.
+ * <p>
+ * Каждая запись файла помнится по 64-битному отпечатку. Для CSV отпечаток
+ * считается по байтам записи, поэтому разбираются только новые записи;
+ * TXT и .gcat читаются целиком, и отпечаток берётся от полей игры.
+ * Исчезнувшая запись и новая с тем же названием, разработчиком
+ * и платформой считаются изменением игры и сохраняют её идентификатор.
+ * Разница считается в потоке слежения и там же попадает в хранилище одним
+ * пакетом (CatalogStore.apply) под одной блокировкой записи; в applier
+ * уходит только итог перечитывания.
+ */
+public final class CatalogWatcher implements Closeable {
+    /**
+     * Сколько файл должен не меняться, прежде чем его перечитать
+     */
+    static final long QUIET_MILLIS = 300;
+    // Изменённые записи CSV разбираются пачками такого размера
+    private static final int BATCH_BYTES = 1 << 20;
+    private static final int READ_BUFFER = 1 << 16;
+    private static final byte[] NEW_LINE = {'\n'};
+    // Отпечатки - FNV-1a с перемешиванием в конце
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    /**
+     * Итог перечитывания: сколько игр добавлено, изменено и удалено,
+     * сколько записей файла пришлось разобрать и сколько из них некорректны
+     */
+    public record Reload(int inserted, int updated, int deleted, int parsed, long skipped, long millis) {
+        public boolean isEmpty() {
+            return inserted == 0 && updated == 0 && deleted == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "+" + inserted + " ~" + updated + " -" + deleted
+                    + " (разобрано записей: " + parsed + ", " + millis + " мс)";
+        }
+    }
+
+    /**
+     * Вызывается в потоке applier после применения изменений
+     */
+    public interface Listener {
+        void reloaded(Reload reload);
+
+        void failed(IOException error);
+    }
+
+    /**
+     * Запись файла, которой нет среди прежних: поля уже разобраны в колонки rows
+     */
+    private interface RecordSink {
+        void record(long fingerprint, GameColumns rows, int slot);
+    }
+
+    /**
+     * Разница файла с хранилищем, готовая к применению одним пакетом, и правки
+     * таблицы отпечатков: записи {отпечаток, idHi, idLo} новые и исчезнувшие
+     */
+    private record Diff(List<Game> updates, List<Game> additions, List<String> removals,
+                        List<long[]> recorded, List<long[]> stale) {
+        /**
+         * Переход таблицы к новому состоянию файла после применения разницы
+         */
+        void advance(RecordTable table) {
+            for (long[] entry : recorded) {
+                table.add(entry[0], entry[1], entry[2]);
+            }
+            for (long[] entry : stale) {
+                table.remove(entry[0], entry[1], entry[2]);
+            }
+        }
+    }
+
+    private final CatalogStore store;
+    private final Path file;
+    private final CatalogFormat format;
+    private final Executor applier;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final ScheduledExecutorService scheduler = CatalogExecutors.newScheduler("catalog-watch");
+    private ScheduledFuture<?> pending;
+    private volatile boolean closed;
+
+    // Отпечатки записей файла и игры, загруженные из них; только в потоке scheduler
+    private RecordTable records;
+
+    private CatalogWatcher(CatalogStore store, Path file, Executor applier, Listener listener) throws IOException {
+        this.store = store;
+        this.file = file.toAbsolutePath();
+        this.format = CatalogFormat.fromFileName(file.getFileName().toString());
+        this.applier = applier;
+        this.listener = listener;
+        this.watchService = this.file.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Начало слежения за файлом, уже загруженным в store. Записи файла
+     * сопоставляются с играми хранилища в фоне; изменения применяются в потоке
+     * слежения, а итог передаётся listener через applier (в окне - поток Swing).
+     */
+    public static CatalogWatcher start(CatalogStore store, Path file, Executor applier, Listener listener)
+            throws IOException {
+        CatalogWatcher watcher = new CatalogWatcher(store, file, applier, listener);
+        // Каталог, а не файл: редакторы часто сохраняют через новый файл и переименование
+        watcher.file.getParent().register(watcher.watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher.scheduler.execute(watcher::baseline);
+        Thread events = CatalogExecutors.daemonFactory("catalog-watch-events").newThread(watcher::pollEvents);
+        events.start();
+        return watcher;
+    }
+
+    public Path file() { return file; }
+
+    /**
+     * Повторное сопоставление файла с хранилищем - после того как приложение
+     * само записало каталог в этот файл
+     */
+    public void resync() {
+        scheduler.execute(this::baseline);
+    }
+
+    /**
+     * Ожидание задач слежения, поставленных до вызова (сопоставление, перечитывание)
+     */
+    void awaitPending() throws InterruptedException, ExecutionException {
+        scheduler.submit(() -> { }).get();
+    }
+
+    private void pollEvents() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // При переполнении очереди событий неизвестно, что изменилось - перечитываем
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(event.context());
+                }
+                if (changed) {
+                    schedule(QUIET_MILLIS);
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Слежение остановлено
+        }
+    }
+
+    /**
+     * Перечитывание после паузы; новое событие откладывает его снова
+     */
+    private synchronized void schedule(long delayMillis) {
+        if (closed) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = scheduler.schedule(this::reloadQuietly, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Сопоставление записей файла с играми хранилища по полям
+     */
+    private void baseline() {
+        try {
+            RecordTable games = new RecordTable(store.size());
+            store.readLock().lock();
+            try {
+                GameColumns columns = store.columns();
+                for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+                    games.add(contentHash(columns, slot), columns.idHi(slot), columns.idLo(slot));
+                }
+            } finally {
+                store.readLock().unlock();
+            }
+            RecordTable table = new RecordTable(games.size());
+            long[] id = new long[2];
+            games.nextGeneration();
+            scan(fingerprint -> false, new ImportReport(), (fingerprint, rows, slot) -> {
+                // Запись без игры (удалена до начала слежения) помнится с нулевым идентификатором
+                if (games.mark(contentHash(rows, slot), id)) {
+                    table.add(fingerprint, id[0], id[1]);
+                } else {
+                    table.add(fingerprint, 0, 0);
+                }
+            });
+            records = table;
+        } catch (IOException e) {
+            applier.execute(() -> listener.failed(e));
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            // Файл ещё дописывается - ждём, пока он успокоится
+            long age = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+            if (age >= 0 && age < QUIET_MILLIS) {
+                schedule(QUIET_MILLIS - age);
+                return;
+            }
+            if (records == null) {
+                // Сопоставление с хранилищем не удалось (файл был недоступен) - повторяем его
+                baseline();
+            } else {
+                reload();
+            }
+        } catch (java.nio.file.NoSuchFileException e) {
+            // Файл заменяется через переименование; новый придёт отдельным событием
+        } catch (IOException e) {
+            applier.execute(() -> listener.failed(e));
+        } catch (RuntimeException e) {
+            // Иначе исключение осталось бы в ScheduledFuture, и о сбое никто бы не узнал
+            IOException error = new IOException("изменения файла не применены: " + e, e);
+            applier.execute(() -> listener.failed(error));
+        }
+    }
+
+    /**
+     * Разница файла с прошлым состоянием и её применение. Стоимость - проход
+     * по байтам файла плюс разбор и применение только изменившихся записей.
+     * Таблица отпечатков переходит к новому состоянию файла только после
+     * применения: при сбое следующее перечитывание посчитает разницу заново.
+     */
+    Reload reload() throws IOException {
+        long started = System.nanoTime();
+        CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.FILE_RELOAD)
+                .bytesRead(Files.size(file));
+        RecordTable table = records;
+        // Встреченные записи отмечаются; неотмеченные после прохода исчезли из файла
+        table.nextGeneration();
+        GameColumns added = new GameColumns();
+        long[][] addedFingerprints = {new long[16]};
+        ImportReport report = new ImportReport();
+        scan(table::mark, report, (fingerprint, rows, slot) -> {
+            int row = added.appendNew(rows.title(slot), rows.genre(slot), rows.year(slot),
+                    rows.ratingTenths(slot), rows.developer(slot), rows.platform(slot));
+            if (row == addedFingerprints[0].length) {
+                addedFingerprints[0] = Arrays.copyOf(addedFingerprints[0], row * 2);
+            }
+            addedFingerprints[0][row] = fingerprint;
+        });
+        Diff diff = diff(table, added, addedFingerprints[0]);
+        long skipped = report.errors();
+        // Поток Swing не ждёт применения: запросы окна идут под блокировкой чтения
+        // и видят каталог до пакета или после, а таблица обновится по reloaded
+        CatalogStore.Changes changes = store.apply(diff.updates(), diff.additions(), diff.removals());
+        diff.advance(table);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        Reload reload = new Reload(changes.added(), changes.updated(), changes.removed(),
+                added.length(), skipped, millis);
+        applier.execute(() -> listener.reloaded(reload));
+        sample.rows(table.size(), reload.parsed()).finish();
+        return reload;
+    }
+
+    /**
+     * Разница с хранилищем: пары «удалена и добавлена» с одинаковым названием,
+     * разработчиком и платформой становятся изменениями. Таблица отпечатков
+     * не меняется; её правки собираются в Diff.
+     */
+    private Diff diff(RecordTable table, GameColumns added, long[] fingerprints) {
+        List<long[]> stale = new ArrayList<>();
+        Map<String, ArrayDeque<long[]>> removedByKey = new HashMap<>();
+        store.readLock().lock();
+        try {
+            GameColumns columns = store.columns();
+            table.forEachUnmarked((fingerprint, hi, lo) -> {
+                stale.add(new long[]{fingerprint, hi, lo});
+                int slot = columns.find(hi, lo);
+                if (slot >= 0) {
+                    removedByKey.computeIfAbsent(key(columns, slot), k -> new ArrayDeque<>())
+                            .add(new long[]{hi, lo});
+                }
+            });
+        } finally {
+            store.readLock().unlock();
+        }
+
+        List<Game> updates = new ArrayList<>();
+        List<Game> additions = new ArrayList<>();
+        List<long[]> recorded = new ArrayList<>();
+        for (int row = 0; row < added.length(); row++) {
+            ArrayDeque<long[]> candidates = removedByKey.get(key(added, row));
+            long[] id = candidates == null ? null : candidates.poll();
+            Game game = added.game(row);
+            if (id != null) {
+                updates.add(new Game(new UUID(id[0], id[1]).toString(), game.getTitle(), game.getGenre(),
+                        game.getReleaseYear(), game.getRating(), game.getDeveloper(), game.getPlatform()));
+                recorded.add(new long[]{fingerprints[row], id[0], id[1]});
+            } else {
+                additions.add(game);
+                recorded.add(new long[]{fingerprints[row], added.idHi(row), added.idLo(row)});
+            }
+        }
+        List<String> removals = new ArrayList<>();
+        for (ArrayDeque<long[]> ids : removedByKey.values()) {
+            for (long[] id : ids) {
+                removals.add(new UUID(id[0], id[1]).toString());
+            }
+        }
+        return new Diff(updates, additions, removals, recorded, stale);
+    }
+
+    /**
+     * Проход по записям файла; sink получает записи, которых нет среди unchanged
+     */
+    private void scan(LongPredicate unchanged, ImportReport report, RecordSink sink) throws IOException {
+        if (format == CatalogFormat.CSV) {
+            scanCsv(unchanged, report, sink);
+            return;
+        }
+        GameColumns columns = CatalogFiles.load(file, report);
+        for (int slot = 0; slot < columns.length(); slot++) {
+            long fingerprint = contentHash(columns, slot);
+            if (!unchanged.test(fingerprint)) {
+                sink.record(fingerprint, columns, slot);
+            }
+        }
+    }
+
+    /**
+     * Записи CSV по байтам: границы записей ищутся тем же автоматом, что
+     * у CsvReader (CsvReader.RecordBoundaries), поэтому перевод строки
+     * внутри кавычек не делит запись
+     */
+    private void scanCsv(LongPredicate unchanged, ImportReport report, RecordSink sink) throws IOException {
+        CsvBatch batch = new CsvBatch(report, sink);
+        // Отпечаток считается по ходу чтения; байты записи копируются,
+        // только если запись переходит через границу буфера
+        byte[] carry = new byte[256];
+        int carried = 0;
+        long h = FNV_OFFSET;
+        int length = 0;
+        CsvReader.RecordBoundaries boundaries = new CsvReader.RecordBoundaries();
+        CatalogFiles.CsvHeader header = new CatalogFiles.CsvHeader();
+        boolean first = true;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER);
+        byte[] bytes = buffer.array();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer.clear()) > 0) {
+                int limit = buffer.position();
+                int from = 0;
+                if (first) {
+                    first = false;
+                    // Метка порядка байтов UTF-8 в начале файла
+                    if (limit >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB
+                            && bytes[2] == (byte) 0xBF) {
+                        from = 3;
+                    }
+                }
+                int start = from;
+                for (int i = from; i < limit; i++) {
+                    byte b = bytes[i];
+                    if (boundaries.endsRecord(b)) {
+                        if (length > 0) {
+                            if (carried > 0) {
+                                carry = append(carry, carried, bytes, start, i - start);
+                                record(header, unchanged, batch, mix(h), carry, 0, length);
+                            } else {
+                                record(header, unchanged, batch, mix(h), bytes, start, length);
+                            }
+                        }
+                        h = FNV_OFFSET;
+                        length = 0;
+                        carried = 0;
+                        start = i + 1;
+                        continue;
+                    }
+                    h = (h ^ (b & 0xFF)) * FNV_PRIME;
+                    length++;
+                }
+                // Незаконченная запись продолжится в следующем буфере
+                carry = append(carry, carried, bytes, start, limit - start);
+                carried += limit - start;
+            }
+        }
+        if (length > 0) {
+            record(header, unchanged, batch, mix(h), carry, 0, length);
+        }
+        batch.flush();
+    }
+
+    /**
+     * Одна запись файла. Пока данные не начались, запись разбирается сразу,
+     * чтобы шапка и заголовок пропускались по тому же правилу, что при загрузке
+     */
+    private static void record(CatalogFiles.CsvHeader header, LongPredicate unchanged, CsvBatch batch,
+                               long fingerprint, byte[] bytes, int from, int length) throws IOException {
+        if (!header.dataStarted()) {
+            CsvReader csv = new CsvReader(new InputStreamReader(
+                    new ByteArrayInputStream(bytes, from, length), StandardCharsets.UTF_8));
+            if (csv.next() && header.skip(csv)) {
+                return;
+            }
+        }
+        if (!unchanged.test(fingerprint)) {
+            batch.add(fingerprint, bytes, from, length);
+        }
+    }
+
+    private static byte[] append(byte[] target, int length, byte[] source, int from, int count) {
+        if (length + count > target.length) {
+            target = Arrays.copyOf(target, Math.max(target.length * 2, length + count));
+        }
+        System.arraycopy(source, from, target, length, count);
+        return target;
+    }
+
+    /**
+     * Новые записи CSV, накопленные для разбора одним CsvReader
+     */
+    private static final class CsvBatch {
+        private final ImportReport report;
+        private final RecordSink sink;
+        private byte[] bytes = new byte[4096];
+        private int length;
+        private long[] fingerprints = new long[64];
+        private int count;
+
+        CsvBatch(ImportReport report, RecordSink sink) {
+            this.report = report;
+            this.sink = sink;
+        }
+
+        void add(long fingerprint, byte[] record, int from, int recordLength) throws IOException {
+            bytes = append(bytes, length, record, from, recordLength);
+            length += recordLength;
+            bytes = append(bytes, length, NEW_LINE, 0, 1);
+            length++;
+            if (count == fingerprints.length) {
+                fingerprints = Arrays.copyOf(fingerprints, count * 2);
+            }
+            fingerprints[count++] = fingerprint;
+            if (length >= BATCH_BYTES) {
+                flush();
+            }
+        }
+
+        /**
+         * Разбор накопленных записей (шапка уже отсеяна в record); пустые строки пропускаются
+         */
+        void flush() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            GameColumns rows = new GameColumns();
+            CsvReader csv = new CsvReader(new InputStreamReader(
+                    new ByteArrayInputStream(bytes, 0, length), StandardCharsets.UTF_8));
+            for (int i = 0; i < count && csv.next(); i++) {
+                if (csv.isBlank()) {
+                    continue;
+                }
+                int before = rows.length();
+                CatalogFiles.readCsvRecord(csv, rows, report);
+                if (rows.length() > before) {
+                    sink.record(fingerprints[i], rows, before);
+                }
+            }
+            length = 0;
+            count = 0;
+        }
+    }
+
+    /**
+     * Отпечаток полей игры: так сравниваются форматы, где запись не отделить по байтам
+     */
+    static long contentHash(GameColumns columns, int slot) {
+        long h = FNV_OFFSET;
+        h = hash(h, columns.title(slot));
+        h = (h ^ columns.genreOrdinal(slot)) * FNV_PRIME;
+        h = (h ^ columns.year(slot)) * FNV_PRIME;
+        h = (h ^ columns.ratingTenths(slot)) * FNV_PRIME;
+        h = hash(h, columns.developer(slot));
+        h = hash(h, columns.platform(slot));
+        return mix(h);
+    }
+
+    private static long hash(long h, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Разделитель, чтобы "ab"+"c" и "a"+"bc" различались
+        return (h ^ 0xFFFF) * FNV_PRIME;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String key(GameColumns columns, int slot) {
+        return columns.title(slot) + '\u0000' + columns.developer(slot) + '\u0000' + columns.platform(slot);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (this) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
+        }
+        scheduler.shutdown();
+        watchService.close();
+    }
+}
@@ -0,0 +1,273 @@
+package com.gamecatalog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Однопроходный разбор CSV по RFC 4180 конечным автоматом.
+ * Поддерживает кавычки, удвоенные кавычки внутри поля и переводы строк
+ * внутри кавычек. Символы читаются через переиспользуемый буфер, поля
+ * записи копируются в общий массив, строки создаются только по запросу.
+ */
+final class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private long line = 1;    // текущая строка файла
+    private long recordLine;  // строка, с которой началась запись
+
+    // Символы всех полей текущей записи и границы полей
+    private char[] chars = new char[256];
+    private int length;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int fields;
+    private String error;
+
+    CsvReader(Reader in) {
+        this(in, 1);
+    }
+
+    /**
+     * Чтение части файла, начинающейся со строки firstLine
+     */
+    CsvReader(Reader in, long firstLine) {
+        this.in = in;
+        this.line = firstLine;
+    }
+
+    /**
+     * Чтение следующей записи; false - конец файла
+     */
+    boolean next() throws IOException {
+        fields = 0;
+        length = 0;
+        error = null;
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        recordLine = line;
+
+        while (true) {
+            // Начало поля: пропускаем пробелы перед значением
+            while (c == ' ' || c == '\t') {
+                c = read();
+            }
+            int start = length;
+            if (c == '"') {
+                c = readQuoted();
+                endField(start, length);
+            } else {
+                int lastNonSpace = start;
+                while (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+                    append((char) c);
+                    if (c != ' ' && c != '\t') {
+                        lastNonSpace = length;
+                    }
+                    c = read();
+                }
+                endField(start, lastNonSpace);
+            }
+
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            endLine(c);
+            return true;
+        }
+    }
+
+    /**
+     * Поле в кавычках; возвращает символ после поля
+     */
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                error = "незакрытая кавычка";
+                return c;
+            }
+            if (c == '"') {
+                c = read();
+                if (c == '"') {
+                    append('"');
+                    continue;
+                }
+                // После закрывающей кавычки допустимы только пробелы и разделитель
+                while (c == ' ' || c == '\t') {
+                    c = read();
+                }
+                if (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+                    error = "лишние символы после закрывающей кавычки";
+                    while (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+                        append((char) c);
+                        c = read();
+                    }
+                }
+                return c;
+            }
+            if (c == '\n' || (c == '\r' && peek() != '\n')) {
+                line++;
+            }
+            append((char) c);
+        }
+    }
+
+    /**
+     * Учёт перевода строки в конце записи (LF, CRLF или CR)
+     */
+    private void endLine(int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        if (c >= 0) {
+            line++;
+        }
+    }
+
+    private void endField(int start, int end) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+        }
+        starts[fields] = start;
+        ends[fields] = end;
+        fields++;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    int fieldCount() { return fields; }
+
+    String field(int index) {
+        return new String(chars, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * Поле с повторяющимся значением - экземпляр из общего пула строк
+     */
+    String pooledField(int index) {
+        return StringPool.SHARED.intern(chars, starts[index], ends[index]);
+    }
+
+    /**
+     * Пустая строка файла: одно пустое поле
+     */
+    boolean isBlank() {
+        return fields == 1 && ends[0] == starts[0];
+    }
+
+    /**
+     * Строка файла, с которой началась текущая запись
+     */
+    long recordLine() { return recordLine; }
+
+    /**
+     * Описание нарушения формата в текущей записи или null
+     */
+    String error() { return error; }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Границы записей по байтам файла без разбора полей - для деления файла
+     * на части и поиска изменившихся записей. Автомат кавычек тот же, что
+     * у next(): кавычка открывает поле только в его начале (после пробелов),
+     * удвоенная кавычка внутри поля - символ, а кавычка посреди поля без
+     * кавычек - обычный символ. Байты кавычки, запятой и переводов строк
+     * не встречаются внутри многобайтовых символов UTF-8.
+     */
+    static final class RecordBoundaries {
+        /**
+         * Число состояний автомата: начало поля, поле без кавычек, внутри
+         * кавычек, сразу после закрывающей кавычки
+         */
+        static final int STATES = 4;
+        private static final int FIELD_START = 0;
+        private static final int UNQUOTED = 1;
+        private static final int QUOTED = 2;
+        private static final int AFTER_QUOTE = 3;
+
+        private int state;
+
+        RecordBoundaries() {
+            this(FIELD_START);
+        }
+
+        /**
+         * Автомат в заданном состоянии (0 .. STATES - 1): проход с середины
+         * файла, где состояние заранее неизвестно
+         */
+        RecordBoundaries(int state) {
+            this.state = state;
+        }
+
+        int state() { return state; }
+
+        /**
+         * Следующий байт; true - перевод строки (LF или CR) вне кавычек, то есть конец записи
+         */
+        boolean endsRecord(byte b) {
+            if (state == QUOTED) {
+                state = b == '"' ? AFTER_QUOTE : QUOTED;
+                return false;
+            }
+            if (state == AFTER_QUOTE && b == '"') {
+                // Удвоенная кавычка внутри поля
+                state = QUOTED;
+                return false;
+            }
+            if (b == '\n' || b == '\r') {
+                state = FIELD_START;
+                return true;
+            }
+            boolean fieldStart = state == FIELD_START;
+            if (b == '"' && fieldStart) {
+                state = QUOTED;
+            } else {
+                state = b == ',' || (fieldStart && (b == ' ' || b == '\t')) ? FIELD_START : UNQUOTED;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package com.gamecatalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Нечёткий поиск по словам названий и разработчиков с опечатками.
+ * Слова приводятся к нижнему регистру без диакритики (ö - o, ё - е),
+ * различные слова лежат в BK-дереве по расстоянию Левенштейна, а для
+ * каждого слова хранятся слоты названий и коды разработчиков, где оно есть.
+ * Индекс строится при первом запросе и затем поддерживается при изменениях.
+ */
+final class FuzzyIndex implements CatalogListener {
+    // Сколько узлов без игр терпит BK-дерево, прежде чем перестроиться
+    private static final int MIN_PRUNED_TOKENS = 64;
+
+    private final CatalogStore store;
+    private boolean built;
+
+    // Словарь слов; номер слова - он же номер узла BK-дерева
+    private final Map<String, Integer> tokenIds = new HashMap<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final List<IntList> titlePostings = new ArrayList<>();
+    private final List<IntList> developerPostings = new ArrayList<>();
+    // BK-дерево: дети узла - односвязный список с расстоянием до родителя на ребре
+    private int[] firstChild = new int[16];
+    private int[] nextSibling = new int[16];
+    private int[] edge = new int[16];
+    // Узлы слов, которых больше нет ни в одной игре: из словаря они уже убраны,
+    // а в дереве остаются как развилки до перестройки
+    private int unusedTokens;
+
+    // Слоты игр по коду разработчика
+    private final List<IntList> developerSlots = new ArrayList<>();
+    private int indexedDevelopers;
+
+    FuzzyIndex(CatalogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public synchronized void rowAdded(int slot) {
+        if (!built) {
+            return;
+        }
+        GameColumns columns = store.columns();
+        for (String token : tokenize(columns.title(slot))) {
+            titlePostings.get(tokenId(token)).addSorted(slot);
+        }
+        StringDictionary developers = columns.developerDictionary();
+        for (; indexedDevelopers < developers.size(); indexedDevelopers++) {
+            developerSlots.add(new IntList());
+            for (String token : tokenize(developers.decode(indexedDevelopers))) {
+                developerPostings.get(tokenId(token)).addSorted(indexedDevelopers);
+            }
+        }
+        developerSlots.get(columns.developerCode(slot)).addSorted(slot);
+    }
+
+    @Override
+    public synchronized void rowRemoved(int slot) {
+        if (!built) {
+            return;
+        }
+        GameColumns columns = store.columns();
+        for (String token : tokenize(columns.title(slot))) {
+            int id = tokenIds.get(token);
+            titlePostings.get(id).removeSorted(slot);
+            if (unused(id)) {
+                tokenIds.remove(token);
+                unusedTokens++;
+            }
+        }
+        developerSlots.get(columns.developerCode(slot)).removeSorted(slot);
+        if (unusedTokens >= MIN_PRUNED_TOKENS && unusedTokens * 2 > tokens.size()) {
+            rebuildTree();
+        }
+    }
+
+    private boolean unused(int id) {
+        return titlePostings.get(id).isEmpty() && developerPostings.get(id).isEmpty();
+    }
+
+    /**
+     * Новое BK-дерево только из слов, которые ещё встречаются в каталоге
+     */
+    private void rebuildTree() {
+        List<String> liveTokens = new ArrayList<>();
+        List<IntList> liveTitles = new ArrayList<>();
+        List<IntList> liveDevelopers = new ArrayList<>();
+        for (int id = 0; id < tokens.size(); id++) {
+            if (!unused(id)) {
+                liveTokens.add(tokens.get(id));
+                liveTitles.add(titlePostings.get(id));
+                liveDevelopers.add(developerPostings.get(id));
+            }
+        }
+        tokenIds.clear();
+        tokens.clear();
+        titlePostings.clear();
+        developerPostings.clear();
+        unusedTokens = 0;
+        for (int i = 0; i < liveTokens.size(); i++) {
+            int id = tokenId(liveTokens.get(i));
+            titlePostings.set(id, liveTitles.get(i));
+            developerPostings.set(id, liveDevelopers.get(i));
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        built = false;
+        tokenIds.clear();
+        tokens.clear();
+        titlePostings.clear();
+        developerPostings.clear();
+        developerSlots.clear();
+        indexedDevelopers = 0;
+        unusedTokens = 0;
+    }
+
+    /**
+     * Построение индекса заранее, чтобы первый нечёткий запрос не ждал
+     */
+    synchronized void prepare() {
+        if (built) {
+            return;
+        }
+        built = true;
+        GameColumns columns = store.columns();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            rowAdded(slot);
+        }
+    }
+
+    /**
+     * До limit лучших игр из allowed, в названии или у разработчика которых
+     * есть все слова запроса с точностью до опечаток. Порядок: сумма расстояний,
+     * затем рейтинг по убыванию, затем порядок каталога.
+     * Вызывается под блокировкой чтения каталога: индекс меняется только под
+     * блокировкой записи, поэтому запросы идут параллельно, а монитор берёт
+     * лишь построение индекса.
+     */
+    int[] search(SearchField field, String text, BitSet allowed, int limit) {
+        prepare();
+        List<String> words = tokenize(text);
+        if (words.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        GameColumns columns = store.columns();
+        boolean developer = field == SearchField.DEVELOPER;
+        List<IntList> postings = developer ? developerPostings : titlePostings;
+
+        // Слова индекса рядом с каждым словом запроса, по расстоянию
+        Levels[] levels = new Levels[words.size()];
+        int maxTotal = 0;
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            int maxDistance = maxDistance(word);
+            maxTotal += maxDistance;
+            levels[w] = new Levels(postings, maxDistance);
+            for (int[] hit : near(word, maxDistance)) {
+                levels[w].tokens[hit[1]].add(hit[0]);
+            }
+        }
+
+        // Уровни суммы расстояний по возрастанию: следующий строится, только
+        // если на предыдущих не набралось limit игр
+        int[] result = new int[limit];
+        int count = 0;
+        for (int total = 0; total <= maxTotal && count < limit; total++) {
+            BitSet level = new BitSet();
+            collect(levels, 0, total, null, level);
+            if (developer) {
+                // Коды разработчиков раскрываются в их игры
+                BitSet slots = new BitSet();
+                for (int code = level.nextSetBit(0); code >= 0; code = level.nextSetBit(code + 1)) {
+                    IntList games = developerSlots.get(code);
+                    for (int i = 0; i < games.size(); i++) {
+                        slots.set(games.get(i));
+                    }
+                }
+                level = slots;
+            }
+            if (allowed != null) {
+                level.and(allowed);
+            }
+            count = takeBest(columns, level, result, count);
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Объединяет в level игры (или коды разработчиков), у которых расстояния
+     * слов запроса с w-го по последнее в сумме дают ровно remaining
+     */
+    private static void collect(Levels[] levels, int w, int remaining, BitSet matched, BitSet level) {
+        if (w == levels.length) {
+            if (remaining == 0 && matched != null) {
+                level.or(matched);
+            }
+            return;
+        }
+        for (int d = 0; d <= Math.min(remaining, levels[w].maxDistance()); d++) {
+            BitSet exact = levels[w].exact(d);
+            if (exact.isEmpty()) {
+                continue;
+            }
+            BitSet next = (BitSet) exact.clone();
+            if (matched != null) {
+                next.and(matched);
+                if (next.isEmpty()) {
+                    continue;
+                }
+            }
+            collect(levels, w + 1, remaining - d, next, level);
+        }
+    }
+
+    /**
+     * Для одного слова запроса: номера слов индекса по расстоянию и лениво
+     * построенные множества, где лучшее расстояние этого слова равно d
+     */
+    private static final class Levels {
+        private final List<IntList> postings;
+        private final IntList[] tokens;
+        private final BitSet[] exact;
+
+        Levels(List<IntList> postings, int maxDistance) {
+            this.postings = postings;
+            tokens = new IntList[maxDistance + 1];
+            for (int d = 0; d <= maxDistance; d++) {
+                tokens[d] = new IntList();
+            }
+            exact = new BitSet[maxDistance + 1];
+        }
+
+        int maxDistance() {
+            return tokens.length - 1;
+        }
+
+        BitSet exact(int distance) {
+            if (exact[distance] == null) {
+                BitSet ids = new BitSet();
+                for (int i = 0; i < tokens[distance].size(); i++) {
+                    IntList list = postings.get(tokens[distance].get(i));
+                    for (int j = 0; j < list.size(); j++) {
+                        ids.set(list.get(j));
+                    }
+                }
+                // Ближе найденное слово важнее: игра остаётся на меньшем расстоянии
+                for (int d = 0; d < distance && !ids.isEmpty(); d++) {
+                    ids.andNot(exact(d));
+                }
+                exact[distance] = ids;
+            }
+            return exact[distance];
+        }
+    }
+
+    /**
+     * Дописывает в result лучшие по рейтингу слоты уровня: рейтинги - корзины 0..100
+     */
+    private static int takeBest(GameColumns columns, BitSet level, int[] result, int count) {
+        int[] perRating = new int[BitmapIndex.MAX_RATING + 2];
+        int found = 0;
+        for (int slot = level.nextSetBit(0); slot >= 0; slot = level.nextSetBit(slot + 1)) {
+            CatalogExecutors.checkCancelled(++found);
+            perRating[bucket(columns.ratingTenths(slot))]++;
+        }
+        if (found == 0) {
+            return count;
+        }
+        // Нижняя граница рейтинга, с которой помещаются оставшиеся места
+        int room = result.length - count;
+        int threshold = BitmapIndex.MAX_RATING + 1;
+        int taken = 0;
+        while (threshold > 0 && taken < room) {
+            taken += perRating[--threshold];
+        }
+        // Слоты не ниже порога: по убыванию рейтинга, затем в порядке каталога
+        long[] packed = new long[taken];
+        int n = 0;
+        for (int slot = level.nextSetBit(0); slot >= 0; slot = level.nextSetBit(slot + 1)) {
+            int rating = bucket(columns.ratingTenths(slot));
+            if (rating >= threshold) {
+                packed[n++] = ((long) (BitmapIndex.MAX_RATING + 1 - rating) << 32) | slot;
+            }
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < n && count < result.length; i++) {
+            result[count++] = (int) packed[i];
+        }
+        return count;
+    }
+
+    private static int bucket(int ratingTenths) {
+        return Math.max(0, Math.min(BitmapIndex.MAX_RATING, ratingTenths));
+    }
+
+    /**
+     * Допустимое число опечаток: короткие слова должны совпасть точно
+     */
+    static int maxDistance(String word) {
+        return word.length() <= 2 ? 0 : word.length() <= 4 ? 1 : 2;
+    }
+
+    /**
+     * Слова индекса на расстоянии не больше maxDistance: пары {номер слова, расстояние}
+     */
+    private List<int[]> near(String word, int maxDistance) {
+        List<int[]> hits = new ArrayList<>();
+        if (tokens.isEmpty()) {
+            return hits;
+        }
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = 0;
+        int visited = 0;
+        while (top > 0) {
+            CatalogExecutors.checkCancelled(++visited);
+            int node = stack[--top];
+            // Дальше bound не нужен ни результат, ни один из детей: точное расстояние не считается
+            int bound = maxDistance;
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                bound = Math.max(bound, edge[child] + maxDistance);
+            }
+            int distance = levenshtein(word, tokens.get(node), bound);
+            if (distance <= maxDistance && !unused(node)) {
+                hits.add(new int[]{node, distance});
+            }
+            // Неравенство треугольника: поддеревья с ребром вне [d - k, d + k] пропускаются
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                if (Math.abs(edge[child] - distance) <= maxDistance) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = child;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Номер слова; новое слово добавляется в словарь и BK-дерево
+     */
+    private int tokenId(String token) {
+        Integer id = tokenIds.get(token);
+        if (id != null) {
+            return id;
+        }
+        int node = tokens.size();
+        tokenIds.put(token, node);
+        tokens.add(token);
+        titlePostings.add(new IntList(1));
+        developerPostings.add(new IntList(1));
+        if (node == firstChild.length) {
+            firstChild = Arrays.copyOf(firstChild, node * 2);
+            nextSibling = Arrays.copyOf(nextSibling, node * 2);
+            edge = Arrays.copyOf(edge, node * 2);
+        }
+        firstChild[node] = -1;
+        nextSibling[node] = -1;
+        if (node > 0) {
+            int parent = 0;
+            while (true) {
+                int distance = levenshtein(token, tokens.get(parent), Integer.MAX_VALUE);
+                int child = firstChild[parent];
+                while (child >= 0 && edge[child] != distance) {
+                    child = nextSibling[child];
+                }
+                if (child < 0) {
+                    edge[node] = distance;
+                    nextSibling[node] = firstChild[parent];
+                    firstChild[parent] = node;
+                    break;
+                }
+                parent = child;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Слова текста без повторов: нижний регистр, без диакритики, только буквы
+     * и цифры; числа отбрасываются
+     */
+    static List<String> tokenize(String text) {
+        String folded = fold(text);
+        List<String> words = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letter = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                String word = folded.substring(start, i);
+                // Числа (номера частей) с опечатками не ищутся - они только сужали бы выдачу
+                if (!isNumber(word) && !words.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Нижний регистр без диакритики; «й» остаётся отдельной буквой
+     */
+    static String fold(String text) {
+        String lower = text.toLowerCase();
+        boolean plain = true;
+        for (int i = 0; i < lower.length() && plain; i++) {
+            char c = lower.charAt(i);
+            // Латиница с диакритикой, комбинируемые знаки и «ё»
+            plain = !(c >= 'À' && c <= 'ͯ') && c != 'ё';
+        }
+        if (plain) {
+            return lower;
+        }
+        String decomposed = Normalizer.normalize(lower.replace('й', '\u0001'), Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c == '\u0001' ? 'й' : c);
+            }
+        }
+        return folded.toString().replace("ß", "ss").replace('ø', 'o').replace('ł', 'l');
+    }
+
+    private static boolean isNumber(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Расстояние Левенштейна на двух строках таблицы; если оно больше max,
+     * возвращается max + 1, как только строка таблицы целиком превысит max
+     */
+    static int levenshtein(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            // Минимум строки таблицы не убывает: расстояние уже больше max
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int distance = previous[b.length()];
+        return distance <= max ? distance : max + 1;
+    }
+}
@@ -20,7 +20,14 @@ public class Game implements Serializable {
     }
 
     public Game(String title, Genre genre, int releaseYear, double rating, String developer, String platform) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), title, genre, releaseYear, rating, developer, platform);
+    }
+
+    /**
+     * Игра с уже известным идентификатором (редактирование, загрузка из хранилища)
+     */
+    public Game(String id, String title, Genre genre, int releaseYear, double rating, String developer, String platform) {
+        this.id = id;
         this.title = title;
         this.genre = genre;
         this.releaseYear = releaseYear;
@@ -1,29 +1,60 @@
 package com.gamecatalog;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableColumnModel;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * Главный класс приложения с графическим интерфейсом
  */
 public class GameCatalogGUI extends JFrame {
-    private List<Game> games;
+    private final CatalogStore store = new CatalogStore();
     private JTable gamesTable;
-    private DefaultTableModel tableModel;
+    private GameTableModel tableModel;
+    // Порядок строк таблицы, выбирается щелчком по заголовку столбца
+    private SortKey sortKey = SortKey.CATALOG;
+    private boolean sortDescending;
+    private SearchPipeline searchPipeline;
+    private CatalogJournal journal;
+    // Слежение за загруженным файлом; null - не включено
+    private CatalogWatcher watcher;
+    // Запросы других программ по HTTP; включается -Dgamecatalog.http.port=N
+    private CatalogServer server;
+    private JLabel watchLabel;
+
+    // Фоновые задачи по очереди: загрузка каталога, затем пересчёты статистики
+    private final ExecutorService background = CatalogExecutors.newSerialExecutor("catalog-background");
+    private CompletableFuture<Void> catalogLoading;
+    private IntFunction<String> welcome;
+    // Этапы до отчёта о запуске: первый кадр и загрузка каталога
+    private int startupPending = 2;
     private JTextArea statsArea;
+    private JTextArea metricsArea;
+    // Версия счётчиков, показанная в панели замеров
+    private long metricsShown = -1;
 
     // Компоненты поиска
     private JComboBox<String> searchFieldCombo;
     private JTextField searchField;
     private JButton searchButton;
     private JButton clearSearchButton;
+    private JCheckBox fuzzyCheck;
+    // Сколько лучших совпадений показывает поиск с опечатками
+    private static final int FUZZY_LIMIT = 200;
 
     // Компоненты фильтрации
     private JComboBox<String> genreFilterCombo;
@@ -44,11 +75,143 @@ public class GameCatalogGUI extends JFrame {
     private final Font tableHeaderFont = new Font("Segoe UI", Font.BOLD, 13);
 
     public GameCatalogGUI() {
-        games = new ArrayList<>();
-        initializeSampleGames();
+        // Каталог читается в фоне, пока строится окно; таблица заполнится после загрузки
+        catalogLoading = CompletableFuture.runAsync(this::loadCatalog, background);
         initializeUI();
+        StartupTimer.mark("окно построено");
+        catalogLoading.whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                // Таблица всё равно заполняется тем, что успело загрузиться
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                JOptionPane.showMessageDialog(this,
+                        "Не удалось загрузить каталог, таблица может быть неполной:\n\n" + cause,
+                        "Ошибка", JOptionPane.ERROR_MESSAGE);
+            }
+            catalogReady();
+        }));
+    }
+
+    /**
+     * Загрузка каталога: журнал, а если он пуст - примеры игр
+     */
+    private void loadCatalog() {
+        openJournal();
+        if (journal == null || !journal.recovered()) {
+            // -Dgamecatalog.sampleSize=N - начать с синтетического каталога из N игр
+            Integer sampleSize = Integer.getInteger("gamecatalog.sampleSize");
+            if (sampleSize != null) {
+                new CatalogGenerator(Long.getLong("gamecatalog.sampleSeed", 1)).fill(store, sampleSize);
+            } else {
+                initializeSampleGames();
+            }
+        }
+        StartupTimer.mark("каталог загружен");
+    }
+
+    /**
+     * Каталог загружен: заполнение таблицы, годов и статистики
+     */
+    private void catalogReady() {
         updateTable();
+        refreshYearOptions();
         updateStatistics();
+        prepareSortOrders();
+        setCatalogActionsEnabled(true);
+        startServer();
+        StartupTimer.mark("таблица заполнена");
+        startupStepDone();
+        if (welcome != null && !Boolean.getBoolean("gamecatalog.exitAfterStartup")) {
+            JOptionPane pane = new JOptionPane(welcome.apply(store.size()), JOptionPane.INFORMATION_MESSAGE);
+            JDialog dialog = pane.createDialog(this, "Добро пожаловать!");
+            // Приветствие не мешает сразу работать с таблицей
+            dialog.setModal(false);
+            dialog.setVisible(true);
+        }
+    }
+
+    /**
+     * Приветствие, которое покажется после загрузки каталога; аргумент - число игр
+     */
+    void showWelcome(IntFunction<String> message) {
+        welcome = message;
+    }
+
+    /**
+     * Первый кадр показан или каталог загружен; после обоих - отчёт о запуске.
+     * С -Dgamecatalog.exitAfterStartup=true приложение затем завершается
+     * (так записывается архив AppCDS).
+     */
+    private void startupStepDone() {
+        if (--startupPending > 0) {
+            return;
+        }
+        System.out.println(StartupTimer.report());
+        if (Boolean.getBoolean("gamecatalog.exitAfterStartup")) {
+            closeJournal();
+            System.exit(0);
+        }
+    }
+
+    private void setCatalogActionsEnabled(boolean enabled) {
+        for (JButton button : new JButton[]{addButton, editButton, deleteButton, statsButton, saveButton, loadButton}) {
+            button.setEnabled(enabled);
+        }
+    }
+
+    /**
+     * HTTP-сервер запросов к каталогу, если задан порт
+     */
+    private void startServer() {
+        Integer port = Integer.getInteger("gamecatalog.http.port");
+        if (port == null) {
+            return;
+        }
+        try {
+            server = CatalogServer.start(store, port);
+            System.out.println("HTTP: http://127.0.0.1:" + server.port() + "/games");
+        } catch (IOException e) {
+            System.err.println("Не удалось запустить HTTP-сервер: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Перед выходом: остановка HTTP-сервера и запись оставшихся изменений журнала
+     */
+    private void closeJournal() {
+        // Ошибка загрузки уже показана; здесь важно лишь, что загрузка закончилась
+        catalogLoading.exceptionally(error -> null).join();
+        if (server != null) {
+            server.close();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                System.err.println("Ошибка закрытия журнала: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Восстановление каталога из журнала; дальнейшие изменения пишутся в него
+     */
+    private void openJournal() {
+        try {
+            journal = CatalogJournal.open(store, CatalogJournal.defaultDirectory());
+            // Отключённый журнал молча отбрасывал бы все дальнейшие правки
+            journal.onFailure(e -> SwingUtilities.invokeLater(() -> {
+                setTitle(getTitle() + " — изменения не сохраняются");
+                JOptionPane.showMessageDialog(this,
+                        "Не удалось записать журнал каталога, дальнейшие изменения не сохраняются.\n"
+                                + "Сохраните каталог в файл, чтобы не потерять правки:\n\n" + e.getMessage(),
+                        "Ошибка", JOptionPane.ERROR_MESSAGE);
+            }));
+        } catch (IOException e) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Не удалось открыть журнал каталога, изменения не будут сохраняться:\n\n" + e.getMessage(),
+                    "Ошибка", JOptionPane.WARNING_MESSAGE));
+        }
     }
 
     /**
@@ -79,7 +242,7 @@ public class GameCatalogGUI extends JFrame {
     }
 
     private void addSampleGame(String title, Game.Genre genre, int year, double rating, String developer, String platform) {
-        games.add(new Game(title, genre, year, rating, developer, platform));
+        store.add(new Game(title, genre, year, rating, developer, platform));
     }
 
     /**
@@ -88,15 +251,33 @@ public class GameCatalogGUI extends JFrame {
     private void initializeUI() {
         setTitle("Каталог компьютерных игр жанра Action/RPG");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                // Отметка после того, как обработаются события первой отрисовки
+                SwingUtilities.invokeLater(() -> {
+                    StartupTimer.mark("первый кадр");
+                    startupStepDone();
+                });
+            }
+
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Дописываем журнал до выхода
+                closeJournal();
+            }
+        });
         setLayout(new BorderLayout());
         setMinimumSize(new Dimension(1200, 700));
 
-        // Устанавливаем иконку окна
-        try {
-            setIconImage(Toolkit.getDefaultToolkit().getImage(getClass().getResource("/icon.png")));
-        } catch (Exception e) {
-            // Иконка не найдена - это нормально
-        }
+        // Иконка окна ищется в фоне и не задерживает первый кадр
+        CompletableFuture.runAsync(() -> {
+            java.net.URL icon = getClass().getResource("/icon.png");
+            if (icon != null) {
+                Image image = Toolkit.getDefaultToolkit().getImage(icon);
+                SwingUtilities.invokeLater(() -> setIconImage(image));
+            }
+        });
 
         // Заголовок
         JLabel titleLabel = new JLabel("🎮 КАТАЛОГ КОМПЬЮТЕРНЫХ ИГР ЖАНРА ACTION/RPG 🎮", SwingConstants.CENTER);
@@ -118,9 +299,13 @@ public class GameCatalogGUI extends JFrame {
         topPanel.add(createSearchPanel(), BorderLayout.NORTH);
         topPanel.add(createTablePanel(), BorderLayout.CENTER);
 
-        // Нижняя панель: статистика и кнопки
+        // Нижняя панель: статистика, замеры операций и кнопки
+        JSplitPane statsSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, createStatsPanel(), createMetricsPanel());
+        statsSplit.setResizeWeight(0.5);
+        statsSplit.setDividerSize(6);
+        statsSplit.setBorder(null);
         JPanel bottomPanel = new JPanel(new BorderLayout());
-        bottomPanel.add(createStatsPanel(), BorderLayout.CENTER);
+        bottomPanel.add(statsSplit, BorderLayout.CENTER);
         bottomPanel.add(createButtonPanel(), BorderLayout.SOUTH);
 
         splitPane.setTopComponent(topPanel);
@@ -128,6 +313,10 @@ public class GameCatalogGUI extends JFrame {
 
         add(splitPane, BorderLayout.CENTER);
 
+        // До загрузки каталога действия с ним недоступны
+        setCatalogActionsEnabled(false);
+        statsArea.setText("Каталог загружается...");
+
         // Центрируем окно
         pack();
         setLocationRelativeTo(null);
@@ -179,6 +368,7 @@ public class GameCatalogGUI extends JFrame {
                 BorderFactory.createLineBorder(new Color(200, 200, 220)),
                 BorderFactory.createEmptyBorder(5, 8, 5, 8)
         ));
+        // Поиск выполняется в фоне после паузы во вводе
         searchField.addKeyListener(new KeyAdapter() {
             public void keyReleased(KeyEvent e) {
                 filterGames();
@@ -188,6 +378,7 @@ public class GameCatalogGUI extends JFrame {
 
         gbc.gridx = 3; gbc.weightx = 0;
         searchButton = createStyledButton("Поиск", new Color(70, 130, 180));
+        searchButton.addActionListener(e -> filterGames());
         searchPanel.add(searchButton, gbc);
 
         gbc.gridx = 4;
@@ -201,6 +392,21 @@ public class GameCatalogGUI extends JFrame {
         });
         searchPanel.add(clearSearchButton, gbc);
 
+        gbc.gridx = 5;
+        fuzzyCheck = new JCheckBox("С опечатками");
+        fuzzyCheck.setFont(normalFont);
+        fuzzyCheck.setForeground(Color.BLACK);
+        fuzzyCheck.setBackground(new Color(250, 250, 255));
+        fuzzyCheck.setToolTipText("Лучшие " + FUZZY_LIMIT + " совпадений по словам названия или разработчика");
+        fuzzyCheck.addActionListener(e -> {
+            if (fuzzyCheck.isSelected()) {
+                // Индекс слов строится в фоне, пока пользователь печатает
+                background.execute(store::prepareFuzzySearch);
+            }
+            filterGames();
+        });
+        searchPanel.add(fuzzyCheck, gbc);
+
         // Фильтры
         gbc.gridx = 0; gbc.gridy = 1;
         JLabel genreLabel = new JLabel("Жанр:");
@@ -223,7 +429,8 @@ public class GameCatalogGUI extends JFrame {
         searchPanel.add(yearLabel, gbc);
 
         gbc.gridx = 3;
-        yearFilterCombo = new JComboBox<>(getYearOptions());
+        // Годы появятся после загрузки каталога (refreshYearOptions)
+        yearFilterCombo = new JComboBox<>(new String[]{"Все"});
         yearFilterCombo.setFont(normalFont);
         yearFilterCombo.setBackground(Color.WHITE);
         yearFilterCombo.setForeground(Color.BLACK);
@@ -260,6 +467,18 @@ public class GameCatalogGUI extends JFrame {
         return searchPanel;
     }
 
+    /**
+     * Обновление списка годов с сохранением выбранного
+     */
+    private void refreshYearOptions() {
+        Object selected = yearFilterCombo.getSelectedItem();
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>(getYearOptions());
+        if (model.getIndexOf(selected) >= 0) {
+            model.setSelectedItem(selected);
+        }
+        yearFilterCombo.setModel(model);
+    }
+
     /**
      * Получить список годов для фильтра
      */
@@ -267,14 +486,8 @@ public class GameCatalogGUI extends JFrame {
         List<String> years = new ArrayList<>();
         years.add("Все");
 
-        // Получаем уникальные годы из игр
-        Set<Integer> uniqueYears = new TreeSet<>(Collections.reverseOrder());
-        for (Game game : games) {
-            uniqueYears.add(game.getReleaseYear());
-        }
-
-        // Добавляем годы в список
-        for (int year : uniqueYears) {
+        // Годы берём из индекса каталога (уже по убыванию)
+        for (int year : store.years()) {
             years.add(String.valueOf(year));
         }
 
@@ -288,14 +501,8 @@ public class GameCatalogGUI extends JFrame {
         JPanel tablePanel = new JPanel(new BorderLayout());
         tablePanel.setBorder(BorderFactory.createEmptyBorder(5, 0, 5, 0));
 
-        // Заголовки таблицы
-        String[] columns = {"№", "Название", "Жанр", "Год", "Рейтинг", "Разработчик", "Платформа"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        // Строки формируются моделью при отрисовке
+        tableModel = new GameTableModel(store);
 
         gamesTable = new JTable(tableModel);
         gamesTable.setRowHeight(28);
@@ -314,11 +521,30 @@ public class GameCatalogGUI extends JFrame {
         header.setBackground(new Color(70, 130, 180));
         header.setForeground(Color.WHITE);
         header.setReorderingAllowed(false);
+        header.setToolTipText("Щелчок по заголовку - сортировка, повторный - в обратном порядке");
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = header.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    sortBy(gamesTable.convertColumnIndexToModel(column));
+                }
+            }
+        });
 
         // Панель прокрутки для таблицы
         JScrollPane scrollPane = new JScrollPane(gamesTable);
         scrollPane.setBorder(BorderFactory.createLineBorder(new Color(200, 210, 230)));
         scrollPane.getViewport().setBackground(Color.WHITE);
+        // Прокрутка подгружает окно строк вокруг видимых
+        scrollPane.getViewport().addChangeListener(e -> {
+            Rectangle view = scrollPane.getViewport().getViewRect();
+            int first = gamesTable.rowAtPoint(new Point(0, view.y));
+            int last = gamesTable.rowAtPoint(new Point(0, view.y + view.height - 1));
+            if (first >= 0) {
+                tableModel.prefetch(first, last >= 0 ? last : tableModel.getRowCount() - 1);
+            }
+        });
         tablePanel.add(scrollPane, BorderLayout.CENTER);
 
         // Инфопанель
@@ -334,6 +560,25 @@ public class GameCatalogGUI extends JFrame {
         countLabel.setForeground(new Color(0, 100, 200));
         infoPanel.add(countLabel);
 
+        JLabel searchStatsLabel = new JLabel();
+        searchStatsLabel.setFont(tableFont);
+        searchStatsLabel.setForeground(new Color(120, 120, 140));
+        searchStatsLabel.setBorder(BorderFactory.createEmptyBorder(0, 20, 0, 0));
+        infoPanel.add(searchStatsLabel);
+
+        watchLabel = new JLabel();
+        watchLabel.setFont(tableFont);
+        watchLabel.setForeground(new Color(120, 120, 140));
+        watchLabel.setBorder(BorderFactory.createEmptyBorder(0, 20, 0, 0));
+        infoPanel.add(watchLabel);
+
+        // Фоновый поиск публикует результат в модель и обновляет счётчики запросов
+        long debounceMillis = Long.getLong("gamecatalog.search.debounceMs", 200);
+        searchPipeline = new SearchPipeline(debounceMillis, rows -> {
+            tableModel.setRows(rows);
+            searchStatsLabel.setText("Поиск - " + searchPipeline.report());
+        });
+
         // Обновление счетчика при изменении таблицы
         tableModel.addTableModelListener(e -> {
             countLabel.setText("Всего игр: " + tableModel.getRowCount());
@@ -379,6 +624,82 @@ public class GameCatalogGUI extends JFrame {
         return statsPanel;
     }
 
+    /**
+     * Панель замеров операций рядом со статистикой: раз в секунду
+     * перерисовывается, если с прошлого раза были новые замеры
+     */
+    private JPanel createMetricsPanel() {
+        JPanel metricsPanel = new JPanel(new BorderLayout(0, 5));
+        metricsPanel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createTitledBorder(
+                        BorderFactory.createLineBorder(new Color(150, 180, 220), 2),
+                        "⏱ Замеры операций",
+                        javax.swing.border.TitledBorder.DEFAULT_JUSTIFICATION,
+                        javax.swing.border.TitledBorder.DEFAULT_POSITION,
+                        headerFont,
+                        new Color(0, 100, 200)),
+                BorderFactory.createEmptyBorder(5, 5, 5, 5)
+        ));
+
+        metricsArea = new JTextArea();
+        metricsArea.setFont(statsFont);
+        metricsArea.setEditable(false);
+        metricsArea.setForeground(Color.BLACK);
+        metricsArea.setBackground(new Color(253, 253, 255));
+        metricsArea.setMargin(new Insets(10, 15, 10, 15));
+
+        JScrollPane scrollPane = new JScrollPane(metricsArea);
+        scrollPane.setBorder(BorderFactory.createLineBorder(new Color(220, 225, 235)));
+        scrollPane.getViewport().setBackground(metricsArea.getBackground());
+        metricsPanel.add(scrollPane, BorderLayout.CENTER);
+
+        JButton exportButton = new JButton("Выгрузить снимок...");
+        exportButton.setFont(normalFont);
+        exportButton.addActionListener(e -> exportMetrics());
+        JButton resetButton = new JButton("Сбросить");
+        resetButton.setFont(normalFont);
+        resetButton.addActionListener(e -> CatalogMetrics.reset());
+        JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        actions.add(resetButton);
+        actions.add(exportButton);
+        metricsPanel.add(actions, BorderLayout.SOUTH);
+
+        refreshMetrics();
+        new javax.swing.Timer(1000, e -> refreshMetrics()).start();
+        return metricsPanel;
+    }
+
+    private void refreshMetrics() {
+        long version = CatalogMetrics.version();
+        if (version == metricsShown) {
+            return;
+        }
+        metricsShown = version;
+        metricsArea.setText(CatalogMetrics.report());
+        metricsArea.setCaretPosition(0);
+    }
+
+    /**
+     * Снимок замеров в текстовый файл
+     */
+    private void exportMetrics() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Выгрузка замеров операций");
+        fileChooser.setSelectedFile(new File("metrics.txt"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String snapshot = "Замеры операций каталога, " + new Date() + "\n"
+                + "Игр в каталоге: " + store.size() + "\n\n" + CatalogMetrics.report();
+        try {
+            Files.writeString(fileChooser.getSelectedFile().toPath(), snapshot);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Ошибка сохранения файла:\n\n" + e.getMessage(),
+                    "Ошибка", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     /**
      * Панель с кнопками управления
      */
@@ -421,6 +742,7 @@ public class GameCatalogGUI extends JFrame {
                     "Вы уверены, что хотите выйти?", "Подтверждение выхода",
                     JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
             if (confirm == JOptionPane.YES_OPTION) {
+                closeJournal();
                 System.exit(0);
             }
         });
@@ -482,168 +804,121 @@ public class GameCatalogGUI extends JFrame {
      * Обновление таблицы
      */
     private void updateTable() {
-        tableModel.setRowCount(0); // Очищаем таблицу
-
-        for (int i = 0; i < games.size(); i++) {
-            Game game = games.get(i);
-            tableModel.addRow(new Object[]{
-                    i + 1,
-                    game.getTitle(),
-                    game.getGenre().toString().replace("_", "/"),
-                    game.getReleaseYear(),
-                    String.format("%.1f", game.getRating()),
-                    game.getDeveloper(),
-                    game.getPlatform()
+        SortKey key = sortKey;
+        boolean descending = sortDescending;
+        if (key != SortKey.CATALOG) {
+            // После сброса индекса перестановку поля строит поток поиска, а не поток событий
+            searchPipeline.submit(() -> {
+                CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.UPDATE_TABLE);
+                RowSource rows = store.rows(store.select(null, null, 0), key, descending);
+                sample.rows(store.size(), rows.size()).finish();
+                return rows;
             });
+            return;
         }
+        CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.UPDATE_TABLE);
+        // Результат ещё не завершённого поиска больше не актуален
+        searchPipeline.cancelAll();
+        RowSource rows = store.rows(store.select(null, null, 0), key, descending);
+        tableModel.setRows(rows);
+        sample.rows(store.size(), rows.size()).finish();
     }
 
     /**
-     * Обновление статистики
+     * Сортировка по столбцу; повторный щелчок меняет направление
      */
-    private void updateStatistics() {
-        if (games.isEmpty()) {
-            statsArea.setText("Каталог пуст.");
-            return;
-        }
-
-        StringBuilder stats = new StringBuilder();
-
-        int totalGames = games.size();
-        double avgRating = 0.0;
-        for (Game game : games) {
-            avgRating += game.getRating();
-        }
-        avgRating = totalGames > 0 ? avgRating / totalGames : 0.0;
-
-        Map<Game.Genre, Integer> genreDistribution = new HashMap<>();
-        Map<Integer, Integer> yearDistribution = new TreeMap<>(Collections.reverseOrder());
-
-        for (Game game : games) {
-            // Распределение по жанрам
-            genreDistribution.put(game.getGenre(),
-                    genreDistribution.getOrDefault(game.getGenre(), 0) + 1);
-
-            // Распределение по годам
-            yearDistribution.put(game.getReleaseYear(),
-                    yearDistribution.getOrDefault(game.getReleaseYear(), 0) + 1);
-        }
-
-        // Топ-3 игр по рейтингу
-        List<Game> topGames = new ArrayList<>(games);
-        topGames.sort((g1, g2) -> Double.compare(g2.getRating(), g1.getRating()));
-
-        // Форматирование статистики
-        stats.append("══════════════════════════════════════════════════════════\n");
-        stats.append("                СТАТИСТИКА КАТАЛОГА ИГР\n");
-        stats.append("══════════════════════════════════════════════════════════\n\n");
-
-        stats.append("📊 ОБЩАЯ СТАТИСТИКА:\n");
-        stats.append("   Всего игр в каталоге: ").append(totalGames).append("\n");
-        stats.append(String.format("   Средний рейтинг: %.2f/10.0\n\n", avgRating));
-
-        stats.append("🎮 РАСПРЕДЕЛЕНИЕ ПО ЖАНРАМ:\n");
-        for (Game.Genre genre : Game.Genre.values()) {
-            int count = genreDistribution.getOrDefault(genre, 0);
-            double percentage = totalGames > 0 ? (count * 100.0 / totalGames) : 0;
-            String bar = "■".repeat(Math.max(0, (int)(percentage / 3)));
-            stats.append(String.format("   %-12s: %d игр (%.1f%%) %s\n",
-                    genre.toString().replace("_", "/"), count, percentage, bar));
-        }
-        stats.append("\n");
-
-        stats.append("📅 РАСПРЕДЕЛЕНИЕ ПО ГОДАМ:\n");
-        for (Map.Entry<Integer, Integer> entry : yearDistribution.entrySet()) {
-            stats.append(String.format("   %d: %d игр\n", entry.getKey(), entry.getValue()));
-        }
-        stats.append("\n");
-
-        stats.append("🏆 ТОП-3 ИГР ПО РЕЙТИНГУ:\n");
-        int limit = Math.min(3, topGames.size());
-        for (int i = 0; i < limit; i++) {
-            Game game = topGames.get(i);
-            stats.append(String.format("   %d. %s (рейтинг: %.1f/10.0)\n",
-                    i + 1, game.getTitle(), game.getRating()));
-        }
-
-        // Самая старая и новая игра
-        if (!games.isEmpty()) {
-            Game oldest = Collections.min(games, Comparator.comparingInt(Game::getReleaseYear));
-            Game newest = Collections.max(games, Comparator.comparingInt(Game::getReleaseYear));
-            stats.append("\n");
-            stats.append("📈 ДОПОЛНИТЕЛЬНАЯ ИНФОРМАЦИЯ:\n");
-            stats.append(String.format("   Самая старая игра: %s (%d год)\n",
-                    oldest.getTitle(), oldest.getReleaseYear()));
-            stats.append(String.format("   Самая новая игра: %s (%d год)\n",
-                    newest.getTitle(), newest.getReleaseYear()));
+    private void sortBy(int column) {
+        SortKey key = GameTableModel.sortKey(column);
+        sortDescending = key == sortKey && !sortDescending;
+        sortKey = key;
+
+        // Стрелка в заголовке показывает поле и направление
+        TableColumnModel columnModel = gamesTable.getColumnModel();
+        for (int i = 0; i < columnModel.getColumnCount(); i++) {
+            TableColumn tableColumn = columnModel.getColumn(i);
+            String name = tableModel.getColumnName(tableColumn.getModelIndex());
+            boolean sorted = tableColumn.getModelIndex() == column && key != SortKey.CATALOG;
+            tableColumn.setHeaderValue(sorted ? name + (sortDescending ? " ▼" : " ▲") : name);
         }
+        gamesTable.getTableHeader().repaint();
+        filterGames();
+    }
 
-        statsArea.setText(stats.toString());
+    /**
+     * Порядки сортировки строятся в фоне, чтобы щелчок по заголовку не ждал
+     */
+    private void prepareSortOrders() {
+        background.execute(() -> store.prepareSort(SortKey.TITLE, SortKey.YEAR, SortKey.RATING,
+                SortKey.DEVELOPER, SortKey.PLATFORM, SortKey.GENRE));
+    }
 
-        // Автоматическая прокрутка в начало
-        statsArea.setCaretPosition(0);
+    /**
+     * Обновление статистики
+     */
+    private void updateStatistics() {
+        // Отчёт собирается в фоне, текст ставится в потоке Swing
+        background.execute(() -> {
+            CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.STATISTICS);
+            String report = store.statisticsReport();
+            int size = store.size();
+            sample.rows(size, size).finish();
+            SwingUtilities.invokeLater(() -> {
+                statsArea.setText(report);
+
+                // Автоматическая прокрутка в начало
+                statsArea.setCaretPosition(0);
+            });
+        });
     }
 
     /**
-     * Фильтрация игр
+     * Фильтрация игр: условия читаются в потоке Swing, поиск идёт в фоне
      */
     private void filterGames() {
-        String searchText = searchField.getText().toLowerCase().trim();
-        String searchFieldType = (String) searchFieldCombo.getSelectedItem();
-        String selectedGenre = (String) genreFilterCombo.getSelectedItem();
-        String selectedYear = (String) yearFilterCombo.getSelectedItem();
-        double minRating = ratingSlider.getValue() / 10.0;
-
-        tableModel.setRowCount(0); // Очищаем таблицу
-
-        int count = 0;
-        for (int i = 0; i < games.size(); i++) {
-            Game game = games.get(i);
-            boolean matches = true;
-
-            // Поиск по тексту
-            if (!searchText.isEmpty()) {
-                String searchIn = switch (searchFieldType) {
-                    case "Названию" -> game.getTitle().toLowerCase();
-                    case "Разработчику" -> game.getDeveloper().toLowerCase();
-                    case "Платформе" -> game.getPlatform().toLowerCase();
-                    default -> "";
-                };
-
-                if (!searchIn.contains(searchText)) {
-                    matches = false;
+        GameQuery query = currentQuery();
+        SortKey key = sortKey;
+        boolean descending = sortDescending;
+        if (fuzzyCheck.isSelected() && query.hasText()) {
+            // Нечёткие совпадения уже упорядочены по качеству; щелчок по заголовку пересортирует их
+            searchPipeline.submit(measured(() -> {
+                int[] ranked = store.fuzzySearch(query, FUZZY_LIMIT);
+                if (key == SortKey.CATALOG) {
+                    return RowSource.of(ranked);
                 }
-            }
-
-            // Фильтр по жанру
-            if (!selectedGenre.equals("Все") && !game.getGenre().toString()
-                    .replace("_", "/").equals(selectedGenre)) {
-                matches = false;
-            }
-
-            // Фильтр по году
-            if (!selectedYear.equals("Все") && game.getReleaseYear() != Integer.parseInt(selectedYear)) {
-                matches = false;
-            }
+                BitSet slots = new BitSet();
+                for (int slot : ranked) {
+                    slots.set(slot);
+                }
+                return store.rows(slots, key, descending);
+            }));
+            return;
+        }
+        searchPipeline.submit(measured(() -> store.rows(query.select(store), key, descending)));
+    }
 
-            // Фильтр по рейтингу
-            if (game.getRating() < minRating) {
-                matches = false;
-            }
+    /**
+     * Поиск с замером: время и число строк считаются в фоновом потоке поиска
+     */
+    private Supplier<RowSource> measured(Supplier<RowSource> query) {
+        return () -> {
+            CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.FILTER);
+            RowSource rows = query.get();
+            sample.rows(store.size(), rows.size()).finish();
+            return rows;
+        };
+    }
 
-            if (matches) {
-                tableModel.addRow(new Object[]{
-                        count + 1,
-                        game.getTitle(),
-                        game.getGenre().toString().replace("_", "/"),
-                        game.getReleaseYear(),
-                        String.format("%.1f", game.getRating()),
-                        game.getDeveloper(),
-                        game.getPlatform()
-                });
-                count++;
-            }
-        }
+    /**
+     * Запрос из текущих условий окна. Пункты списков идут в порядке
+     * Game.Genre и SearchField, поэтому разбирается только год.
+     */
+    private GameQuery currentQuery() {
+        int genreIndex = genreFilterCombo.getSelectedIndex();
+        Game.Genre genre = genreIndex <= 0 ? null : Game.Genre.values()[genreIndex - 1];
+        String selectedYear = (String) yearFilterCombo.getSelectedItem();
+        Integer year = selectedYear == null || selectedYear.equals("Все") ? null : Integer.valueOf(selectedYear);
+        SearchField field = SearchField.values()[Math.max(0, searchFieldCombo.getSelectedIndex())];
+        return GameQuery.of(genre, year, ratingSlider.getValue() / 10.0, field, searchField.getText());
     }
 
     /**
@@ -792,11 +1067,11 @@ public class GameCatalogGUI extends JFrame {
                     genre,
                     (int) yearSpinner.getValue(),
                     ratingSlider.getValue() / 10.0,
-                    developerField.getText().trim(),
-                    platformField.getText().trim()
+                    StringPool.SHARED.intern(developerField.getText().trim()),
+                    StringPool.SHARED.intern(platformField.getText().trim())
             );
 
-            games.add(game);
+            store.add(game);
             updateTable();
             updateStatistics();
 
@@ -834,6 +1109,26 @@ public class GameCatalogGUI extends JFrame {
         });
     }
 
+    /**
+     * Игра в строке таблицы или null с сообщением, если строка устарела:
+     * таблица ещё ждёт новых строк после сброса индекса или перечитывания файла
+     */
+    private Game gameAt(int row) {
+        int slot = tableModel.slotAt(row);
+        store.readLock().lock();
+        try {
+            if (slot >= 0 && store.columns().isLive(slot)) {
+                return store.columns().game(slot);
+            }
+        } finally {
+            store.readLock().unlock();
+        }
+        JOptionPane.showMessageDialog(this,
+                "Таблица обновляется, выбранной строки уже нет.\n\nВыберите игру ещё раз.",
+                "Ошибка", JOptionPane.ERROR_MESSAGE);
+        return null;
+    }
+
     /**
      * Диалог редактирования игры
      */
@@ -846,7 +1141,10 @@ public class GameCatalogGUI extends JFrame {
             return;
         }
 
-        Game game = games.get(selectedRow);
+        Game game = gameAt(selectedRow);
+        if (game == null) {
+            return;
+        }
 
         JDialog dialog = new JDialog(this, "Редактирование игры: " + game.getTitle(), true);
         dialog.setLayout(new BorderLayout());
@@ -986,18 +1284,22 @@ public class GameCatalogGUI extends JFrame {
             Game.Genre genre = Game.Genre.valueOf(genreCombo.getSelectedItem().toString()
                     .replace("/", "_").toUpperCase());
 
-            game.setTitle(titleField.getText().trim());
-            game.setGenre(genre);
-            game.setReleaseYear((int) yearSpinner.getValue());
-            game.setRating(ratingSlider.getValue() / 10.0);
-            game.setDeveloper(developerField.getText().trim());
-            game.setPlatform(platformField.getText().trim());
+            Game edited = new Game(
+                    game.getId(),
+                    titleField.getText().trim(),
+                    genre,
+                    (int) yearSpinner.getValue(),
+                    ratingSlider.getValue() / 10.0,
+                    StringPool.SHARED.intern(developerField.getText().trim()),
+                    StringPool.SHARED.intern(platformField.getText().trim())
+            );
+            store.update(edited);
 
             updateTable();
             updateStatistics();
 
             JOptionPane.showMessageDialog(dialog,
-                    "Изменения в игре \"" + game.getTitle() + "\" сохранены!",
+                    "Изменения в игре \"" + edited.getTitle() + "\" сохранены!",
                     "Успех", JOptionPane.INFORMATION_MESSAGE);
             dialog.dispose();
         });
@@ -1028,7 +1330,10 @@ public class GameCatalogGUI extends JFrame {
             return;
         }
 
-        Game gameToDelete = games.get(selectedRow);
+        Game gameToDelete = gameAt(selectedRow);
+        if (gameToDelete == null) {
+            return;
+        }
 
         // Создаем кастомное диалоговое окно
         JDialog confirmDialog = new JDialog(this, "Подтверждение удаления", true);
@@ -1075,7 +1380,7 @@ public class GameCatalogGUI extends JFrame {
         noButton.setFocusPainted(false);
 
         yesButton.addActionListener(e -> {
-            games.remove(selectedRow);
+            store.remove(gameToDelete.getId());
             updateTable();
             updateStatistics();
 
@@ -1103,7 +1408,7 @@ public class GameCatalogGUI extends JFrame {
      * Диалог сохранения каталога
      */
     private void showSaveDialog() {
-        if (games.isEmpty()) {
+        if (store.isEmpty()) {
             JOptionPane.showMessageDialog(this,
                     "Каталог пуст. Нечего сохранять.",
                     "Ошибка", JOptionPane.WARNING_MESSAGE);
@@ -1131,7 +1436,8 @@ public class GameCatalogGUI extends JFrame {
         panel.add(formatLabel, gbc);
 
         gbc.gridx = 1; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
-        JComboBox<String> formatCombo = new JComboBox<>(new String[]{"TXT (текстовый)", "CSV (табличный)"});
+        JComboBox<String> formatCombo = new JComboBox<>(new String[]{"TXT (текстовый)", "CSV (табличный)", "GCAT (двоичный, быстрая загрузка)",
+                "JSON (для обмена с другими программами)"});
         formatCombo.setFont(normalFont);
         formatCombo.setBackground(Color.WHITE);
         formatCombo.setForeground(Color.BLACK);
@@ -1158,6 +1464,11 @@ public class GameCatalogGUI extends JFrame {
         includeHeaderCheck.setForeground(Color.BLACK);
         includeHeaderCheck.setBackground(new Color(250, 252, 255));
         panel.add(includeHeaderCheck, gbc);
+        // В двоичном формате и JSON шапки с датой нет
+        formatCombo.addActionListener(e -> {
+            CatalogFormat selected = CatalogFormat.values()[formatCombo.getSelectedIndex()];
+            includeHeaderCheck.setEnabled(selected != CatalogFormat.BINARY && selected != CatalogFormat.JSON);
+        });
 
         // Кнопки
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 15));
@@ -1185,13 +1496,14 @@ public class GameCatalogGUI extends JFrame {
                 return;
             }
 
-            String format = ((String) formatCombo.getSelectedItem()).contains("TXT") ? "TXT" : "CSV";
+            // Пункты списка идут в порядке CatalogFormat
+            CatalogFormat format = CatalogFormat.values()[formatCombo.getSelectedIndex()];
             saveToFile(fileName, format, includeHeaderCheck.isSelected());
 
             JOptionPane.showMessageDialog(dialog,
                     "Каталог успешно сохранен!\n\n" +
-                            "Файл: " + fileName + "." + format.toLowerCase() + "\n" +
-                            "Сохранено игр: " + games.size(),
+                            "Файл: " + fileName + "." + format.extension() + "\n" +
+                            "Сохранено игр: " + store.size(),
                     "Успех", JOptionPane.INFORMATION_MESSAGE);
             dialog.dispose();
         });
@@ -1214,7 +1526,7 @@ public class GameCatalogGUI extends JFrame {
      * Диалог загрузки каталога
      */
     private void showLoadDialog() {
-        if (!games.isEmpty()) {
+        if (!store.isEmpty()) {
             int confirm = JOptionPane.showConfirmDialog(this,
                     "Текущий каталог будет заменен. Продолжить?", "Подтверждение",
                     JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
@@ -1229,26 +1541,41 @@ public class GameCatalogGUI extends JFrame {
         fileChooser.setFileFilter(new javax.swing.filechooser.FileFilter() {
             public boolean accept(File f) {
                 return f.isDirectory() || f.getName().toLowerCase().endsWith(".txt")
-                        || f.getName().toLowerCase().endsWith(".csv");
+                        || f.getName().toLowerCase().endsWith(".csv")
+                        || f.getName().toLowerCase().endsWith(".gcat")
+                        || f.getName().toLowerCase().endsWith(".json");
             }
             public String getDescription() {
-                return "Текстовые файлы (*.txt, *.csv)";
+                return "Файлы каталога (*.txt, *.csv, *.gcat, *.json)";
             }
         });
 
+        JCheckBox watchCheck = new JCheckBox("Следить за изменениями файла", watcher != null);
+        watchCheck.setFont(normalFont);
+        fileChooser.setAccessory(watchCheck);
+
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
             try {
-                loadFromFile(file.getAbsolutePath());
+                stopWatching();
+                ImportReport report = loadFromFile(file.getAbsolutePath());
                 updateTable();
+                refreshYearOptions();
                 updateStatistics();
+                prepareSortOrders();
+                if (watchCheck.isSelected()) {
+                    startWatching(file.toPath());
+                }
 
+                String skipped = report.summary(5);
                 JOptionPane.showMessageDialog(this,
                         "Каталог успешно загружен!\n\n" +
                                 "Файл: " + file.getName() + "\n" +
-                                "Загружено игр: " + games.size(),
-                        "Успех", JOptionPane.INFORMATION_MESSAGE);
+                                "Загружено игр: " + store.size() +
+                                (skipped.isEmpty() ? "" : "\n\n" + skipped),
+                        "Успех", skipped.isEmpty() ? JOptionPane.INFORMATION_MESSAGE
+                                : JOptionPane.WARNING_MESSAGE);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this,
                         "Ошибка загрузки файла:\n\n" + ex.getMessage(),
@@ -1260,51 +1587,20 @@ public class GameCatalogGUI extends JFrame {
     /**
      * Сохранение в файл
      */
-    private void saveToFile(String fileName, String format, boolean includeHeader) {
+    private void saveToFile(String fileName, CatalogFormat format, boolean includeHeader) {
         try {
-            if (!fileName.toLowerCase().endsWith("." + format.toLowerCase())) {
-                fileName += "." + format.toLowerCase();
+            if (!fileName.toLowerCase().endsWith("." + format.extension())) {
+                fileName += "." + format.extension();
             }
 
-            PrintWriter writer = new PrintWriter(new FileWriter(fileName, false), true);
-
-            if (includeHeader) {
-                writer.println("=".repeat(70));
-                writer.println("КАТАЛОГ КОМПЬЮТЕРНЫХ ИГР ЖАНРА ACTION/RPG");
-                writer.println("=".repeat(70));
-                writer.println("Дата сохранения: " + new Date());
-                writer.println("Всего игр: " + games.size());
-                writer.println("=".repeat(70));
-                writer.println();
+            Path file = Path.of(fileName);
+            CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.SAVE);
+            CatalogFiles.save(store, file, format, includeHeader);
+            sample.rows(store.size(), store.size()).bytesWritten(Files.size(file)).finish();
+            if (watcher != null && watcher.file().equals(file.toAbsolutePath())) {
+                // Файл теперь совпадает с каталогом, включая правки из окна
+                watcher.resync();
             }
-
-            if (format.equals("CSV")) {
-                // CSV формат
-                writer.println("Title,Genre,Year,Rating,Developer,Platform");
-                for (Game game : games) {
-                    writer.println(String.format("\"%s\",\"%s\",%d,%.1f,\"%s\",\"%s\"",
-                            game.getTitle().replace("\"", "\"\""),
-                            game.getGenre().toString().replace("_", "/"),
-                            game.getReleaseYear(),
-                            game.getRating(),
-                            game.getDeveloper().replace("\"", "\"\""),
-                            game.getPlatform().replace("\"", "\"\"")));
-                }
-            } else {
-                // TXT формат
-                for (int i = 0; i < games.size(); i++) {
-                    Game game = games.get(i);
-                    writer.printf("%d. %s%n", i + 1, game.getTitle());
-                    writer.printf("   Жанр: %s%n", game.getGenre().toString().replace("_", "/"));
-                    writer.printf("   Год выпуска: %d%n", game.getReleaseYear());
-                    writer.printf("   Рейтинг: %.1f/10.0%n", game.getRating());
-                    writer.printf("   Разработчик: %s%n", game.getDeveloper());
-                    writer.printf("   Платформа: %s%n", game.getPlatform());
-                    writer.println();
-                }
-            }
-
-            writer.close();
         } catch (IOException e) {
             JOptionPane.showMessageDialog(this,
                     "Ошибка сохранения файла:\n\n" + e.getMessage(),
@@ -1313,105 +1609,75 @@ public class GameCatalogGUI extends JFrame {
     }
 
     /**
-     * Загрузка из файла
+     * Слежение за файлом: изменения применяются к каталогу по строкам,
+     * таблица перезапрашивается с текущим фильтром и сортировкой
      */
-    private void loadFromFile(String fileName) throws IOException {
-        List<Game> loadedGames = new ArrayList<>();
-        BufferedReader reader = new BufferedReader(new FileReader(fileName));
-        String line;
-        boolean isCSV = fileName.toLowerCase().endsWith(".csv");
-
-        if (isCSV) {
-            // Чтение CSV
-            reader.readLine(); // Пропускаем заголовок
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
-
-                // Простой парсинг CSV (без учета кавычек для простоты)
-                String[] parts = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
-                if (parts.length >= 6) {
-                    try {
-                        // Убираем кавычки если есть
-                        for (int i = 0; i < parts.length; i++) {
-                            parts[i] = parts[i].trim();
-                            if (parts[i].startsWith("\"") && parts[i].endsWith("\"")) {
-                                parts[i] = parts[i].substring(1, parts[i].length() - 1);
-                            }
+    private void startWatching(Path file) {
+        try {
+            watcher = CatalogWatcher.start(store, file, SwingUtilities::invokeLater, new CatalogWatcher.Listener() {
+                @Override
+                public void reloaded(CatalogWatcher.Reload reload) {
+                    watchLabel.setText("Файл " + file.getFileName() + ": " + reload);
+                    if (!reload.isEmpty()) {
+                        if (reload.inserted() + reload.updated() + reload.deleted() > CatalogStore.BULK_ROWS) {
+                            // Большой пакет сбросил порядки сортировки - строим их заново в фоне
+                            prepareSortOrders();
                         }
-
-                        Game.Genre genre = Game.Genre.valueOf(parts[1].toUpperCase().replace("/", "_"));
-                        Game game = new Game(
-                                parts[0],
-                                genre,
-                                Integer.parseInt(parts[2]),
-                                Double.parseDouble(parts[3]),
-                                parts[4],
-                                parts[5]
-                        );
-                        loadedGames.add(game);
-                    } catch (Exception e) {
-                        // Пропускаем некорректные строки
-                        System.err.println("Ошибка парсинга строки: " + line);
+                        filterGames();
+                        refreshYearOptions();
+                        updateStatistics();
                     }
                 }
-            }
-        } else {
-            // Чтение TXT
-            String title = "", developer = "", platform = "";
-            Game.Genre genre = Game.Genre.ACTION_RPG;
-            int year = 2020;
-            double rating = 5.0;
-            boolean readingGame = false;
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-
-                if (line.matches("\\d+\\.\\s+.+")) {
-                    // Новая игра
-                    if (readingGame && !title.isEmpty()) {
-                        loadedGames.add(new Game(title, genre, year, rating, developer, platform));
-                    }
 
-                    title = line.substring(line.indexOf('.') + 1).trim();
-                    readingGame = true;
-                } else if (line.startsWith("Жанр:") && readingGame) {
-                    String genreStr = line.substring(5).trim().toUpperCase().replace("/", "_");
-                    genre = Game.Genre.valueOf(genreStr);
-                } else if (line.startsWith("Год выпуска:") && readingGame) {
-                    try {
-                        year = Integer.parseInt(line.substring(12).trim());
-                    } catch (NumberFormatException e) {
-                        year = 2020;
-                    }
-                } else if (line.startsWith("Рейтинг:") && readingGame) {
-                    try {
-                        String ratingStr = line.substring(8).trim().split("/")[0].trim();
-                        rating = Double.parseDouble(ratingStr);
-                    } catch (Exception e) {
-                        rating = 5.0;
-                    }
-                } else if (line.startsWith("Разработчик:") && readingGame) {
-                    developer = line.substring(12).trim();
-                } else if (line.startsWith("Платформа:") && readingGame) {
-                    platform = line.substring(10).trim();
+                @Override
+                public void failed(IOException error) {
+                    watchLabel.setText("Файл " + file.getFileName() + " не прочитан: " + error.getMessage());
                 }
-            }
+            });
+            watchLabel.setText("Слежение за " + file.getFileName());
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Не удалось следить за файлом:\n\n" + ex.getMessage(),
+                    "Ошибка", JOptionPane.WARNING_MESSAGE);
+        }
+    }
 
-            // Добавляем последнюю игру
-            if (!title.isEmpty()) {
-                loadedGames.add(new Game(title, genre, year, rating, developer, platform));
-            }
+    private void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException ex) {
+            System.err.println("Ошибка остановки слежения: " + ex.getMessage());
         }
+        watcher = null;
+        watchLabel.setText("");
+    }
 
-        reader.close();
-        games = loadedGames;
+    /**
+     * Загрузка из файла
+     */
+    private ImportReport loadFromFile(String fileName) throws IOException {
+        CatalogMetrics.Sample sample = CatalogMetrics.start(CatalogMetrics.Operation.LOAD);
+        Path file = Path.of(fileName);
+        ImportReport report = new ImportReport();
+        GameColumns loaded = CatalogFiles.load(file, report);
+        store.replaceAll(loaded);
+        sample.rows(report.rows() + report.errors(), report.rows()).bytesRead(Files.size(file)).finish();
+        return report;
     }
 
     /**
      * Основной метод запуска
      */
     public static void main(String[] args) {
+        StartupTimer.begin();
+        // С аргументами - пакетный режим без окна (см. Main)
+        if (args.length > 0) {
+            System.exit(CatalogCli.run(args, System.out, System.err));
+        }
+
         // Устанавливаем нативный стиль окон
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -1432,10 +1698,9 @@ public class GameCatalogGUI extends JFrame {
             frame.setVisible(true);
 
             // Приветственное сообщение
-            JOptionPane.showMessageDialog(frame,
-                    "<html><div style='text-align: center;'>"
+            frame.showWelcome(size -> "<html><div style='text-align: center;'>"
                             + "<h3 style='color: #0064c8;'>Добро пожаловать в Каталог компьютерных игр!</h3>"
-                            + "<p style='margin-top: 10px;'>В каталоге уже загружено <b>20 примеров игр</b>.</p>"
+                            + "<p style='margin-top: 10px;'>В каталоге уже загружено игр: <b>" + size + "</b>.</p>"
                             + "<p>Вы можете:</p>"
                             + "<ul style='text-align: left; margin-left: 20px;'>"
                             + "<li>Добавлять новые игры</li>"
@@ -1447,9 +1712,7 @@ public class GameCatalogGUI extends JFrame {
                             + "<li>Просматривать статистику</li>"
                             + "</ul>"
                             + "<p style='margin-top: 15px; color: #666;'>Приятного использования! 🎮</p>"
-                            + "</div></html>",
-                    "Добро пожаловать!",
-                    JOptionPane.INFORMATION_MESSAGE);
+                            + "</div></html>");
         });
     }
 }
\ No newline at end of file
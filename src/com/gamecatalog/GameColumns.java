@@ -0,0 +1,437 @@
+package com.gamecatalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Колоночное представление каталога.
+ * Каждое поле игры хранится в отдельном массиве примитивов, разработчики
+ * и платформы кодируются словарём, а объект Game создаётся только по запросу.
+ * Позиция игры в массивах (слот) не меняется до уплотнения.
+ */
+public final class GameColumns {
+    private static final Game.Genre[] GENRES = Game.Genre.values();
+
+    private long[] idHi = new long[16];
+    private long[] idLo = new long[16];
+    private String[] titles = new String[16];
+    // Названия в нижнем регистре для поиска; заполняются при первом обращении
+    private String[] foldedTitles = new String[16];
+    private byte[] genres = new byte[16];
+    private int[] years = new int[16];
+    private short[] ratings = new short[16]; // рейтинг в десятых долях
+    private int[] developers = new int[16];
+    private int[] platforms = new int[16];
+
+    private final StringDictionary developerDictionary = new StringDictionary();
+    private final StringDictionary platformDictionary = new StringDictionary();
+
+    private final BitSet live = new BitSet();
+    private int length; // занятые слоты, включая удалённые
+    private int size;   // живые игры
+
+    // Открытая адресация: слот + 1, 0 - пустая ячейка
+    private int[] idTable = new int[32];
+
+    /**
+     * Добавление игры в конец колонок; возвращает слот
+     */
+    public int append(Game game) {
+        UUID uuid = toUuid(game.getId());
+        return append(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), game.getTitle(),
+                game.getGenre(), game.getReleaseYear(), toTenths(game.getRating()),
+                game.getDeveloper(), game.getPlatform());
+    }
+
+    /**
+     * Добавление игры с новым случайным идентификатором
+     */
+    public int appendNew(String title, Game.Genre genre, int year, int ratingTenths,
+                         String developer, String platform) {
+        // UUID версии 4 из ThreadLocalRandom: при загрузке миллионов строк
+        // UUID.randomUUID() с SecureRandom заметно тормозит
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long hi = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lo = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return append(hi, lo, title, genre, year, ratingTenths, developer, platform);
+    }
+
+    public int append(long hi, long lo, String title, Game.Genre genre, int year, int ratingTenths,
+                      String developer, String platform) {
+        if (find(hi, lo) >= 0) {
+            throw new IllegalArgumentException("Игра с таким идентификатором уже есть: " + new UUID(hi, lo));
+        }
+        if (length == years.length) {
+            grow();
+        }
+        int slot = length++;
+        idHi[slot] = hi;
+        idLo[slot] = lo;
+        write(slot, title, genre, year, ratingTenths, developer, platform);
+        live.set(slot);
+        size++;
+        if (size * 2 > idTable.length) {
+            rebuildIdTable(idTable.length * 2);
+        } else {
+            insertId(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Дописывание всех живых игр других колонок в конец этих с сохранением порядка.
+     * Коды словарей перекодируются, примитивные колонки копируются блоками
+     * по сплошным участкам живых слотов; сами колонки other не меняются.
+     */
+    public void appendAll(GameColumns other) {
+        int[] developerCodes = remap(other.developerDictionary, developerDictionary);
+        int[] platformCodes = remap(other.platformDictionary, platformDictionary);
+        int count = other.size;
+        while (years.length < length + count) {
+            grow();
+        }
+        int to = length;
+        for (int from = other.live.nextSetBit(0); from >= 0; from = other.live.nextSetBit(from)) {
+            int end = other.live.nextClearBit(from);
+            int run = end - from;
+            System.arraycopy(other.idHi, from, idHi, to, run);
+            System.arraycopy(other.idLo, from, idLo, to, run);
+            System.arraycopy(other.titles, from, titles, to, run);
+            System.arraycopy(other.foldedTitles, from, foldedTitles, to, run);
+            System.arraycopy(other.genres, from, genres, to, run);
+            System.arraycopy(other.years, from, years, to, run);
+            System.arraycopy(other.ratings, from, ratings, to, run);
+            for (int i = 0; i < run; i++) {
+                developers[to + i] = developerCodes[other.developers[from + i]];
+                platforms[to + i] = platformCodes[other.platforms[from + i]];
+            }
+            to += run;
+            from = end;
+        }
+        live.set(length, length + count);
+        length += count;
+        size += count;
+
+        int capacity = idTable.length;
+        while (size * 2 > capacity) {
+            capacity *= 2;
+        }
+        if (capacity != idTable.length) {
+            rebuildIdTable(capacity);
+        } else {
+            for (int slot = length - count; slot < length; slot++) {
+                insertId(slot);
+            }
+        }
+    }
+
+    /**
+     * Колонки поверх готовых массивов (чтение двоичного каталога).
+     * Значения словарей идут в порядке кодов, идентификаторы должны быть различны.
+     */
+    static GameColumns of(int count, long[] idHi, long[] idLo, String[] titles, byte[] genres, int[] years,
+                          short[] ratings, int[] developers, int[] platforms,
+                          String[] developerValues, String[] platformValues) {
+        GameColumns columns = new GameColumns();
+        fill(columns.developerDictionary, developerValues);
+        fill(columns.platformDictionary, platformValues);
+        if (count > 0) {
+            columns.idHi = idHi;
+            columns.idLo = idLo;
+            columns.titles = titles;
+            columns.foldedTitles = new String[titles.length];
+            columns.genres = genres;
+            columns.years = years;
+            columns.ratings = ratings;
+            columns.developers = developers;
+            columns.platforms = platforms;
+        }
+        columns.length = count;
+        columns.size = count;
+        columns.live.set(0, count);
+
+        int capacity = columns.idTable.length;
+        while (count * 2 > capacity) {
+            capacity *= 2;
+        }
+        columns.idTable = new int[capacity];
+        for (int slot = 0; slot < count; slot++) {
+            if (columns.find(idHi[slot], idLo[slot]) >= 0) {
+                throw new IllegalArgumentException("повторяется идентификатор " + new UUID(idHi[slot], idLo[slot]));
+            }
+            columns.insertId(slot);
+        }
+        return columns;
+    }
+
+    private static void fill(StringDictionary dictionary, String[] values) {
+        for (int code = 0; code < values.length; code++) {
+            if (dictionary.encode(values[code]) != code) {
+                throw new IllegalArgumentException("повторяется значение словаря " + values[code]);
+            }
+        }
+    }
+
+    private static int[] remap(StringDictionary from, StringDictionary to) {
+        int[] codes = new int[from.size()];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = to.encode(from.decode(code));
+        }
+        return codes;
+    }
+
+    /**
+     * Перезапись полей игры в слоте (идентификатор не меняется)
+     */
+    void set(int slot, Game game) {
+        write(slot, game.getTitle(), game.getGenre(), game.getReleaseYear(), toTenths(game.getRating()),
+                game.getDeveloper(), game.getPlatform());
+    }
+
+    void set(int slot, String title, Game.Genre genre, int year, int ratingTenths,
+             String developer, String platform) {
+        write(slot, title, genre, year, ratingTenths, developer, platform);
+    }
+
+    /**
+     * Копия игр из указанных слотов с сохранением идентификаторов
+     */
+    GameColumns copy(BitSet slots) {
+        return copy(slots.stream().toArray());
+    }
+
+    /**
+     * Копия игр из слотов в заданном порядке
+     */
+    GameColumns copy(int[] slots) {
+        GameColumns copy = new GameColumns();
+        for (int slot : slots) {
+            copy.append(idHi[slot], idLo[slot], titles[slot], genre(slot), years[slot], ratings[slot],
+                    developer(slot), platform(slot));
+        }
+        return copy;
+    }
+
+    /**
+     * Независимая копия живых игр (для записи снимка в фоне)
+     */
+    GameColumns copy() {
+        GameColumns copy = new GameColumns();
+        copy.appendAll(this);
+        return copy;
+    }
+
+    private void write(int slot, String title, Game.Genre genre, int year, int ratingTenths,
+                       String developer, String platform) {
+        titles[slot] = title;
+        foldedTitles[slot] = null;
+        genres[slot] = (byte) genre.ordinal();
+        years[slot] = year;
+        ratings[slot] = (short) ratingTenths;
+        developers[slot] = developerDictionary.encode(developer);
+        platforms[slot] = platformDictionary.encode(platform);
+    }
+
+    /**
+     * Пометка слота удалённым
+     */
+    void remove(int slot) {
+        deleteId(slot);
+        live.clear(slot);
+        titles[slot] = null;
+        foldedTitles[slot] = null;
+        size--;
+    }
+
+    /**
+     * Слот игры по идентификатору или -1
+     */
+    public int find(String id) {
+        UUID uuid;
+        try {
+            uuid = toUuid(id);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        return find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public int find(long hi, long lo) {
+        int mask = idTable.length - 1;
+        for (int i = hash(hi, lo) & mask; idTable[i] != 0; i = (i + 1) & mask) {
+            int slot = idTable[i] - 1;
+            if (idHi[slot] == hi && idLo[slot] == lo) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Объект Game для слота (создаётся заново при каждом вызове)
+     */
+    public Game game(int slot) {
+        return new Game(id(slot), titles[slot], genre(slot), years[slot], rating(slot),
+                developer(slot), platform(slot));
+    }
+
+    public String id(int slot) { return new UUID(idHi[slot], idLo[slot]).toString(); }
+    public long idHi(int slot) { return idHi[slot]; }
+    public long idLo(int slot) { return idLo[slot]; }
+    public String title(int slot) { return titles[slot]; }
+
+    /**
+     * Название в нижнем регистре; вычисляется один раз на слот.
+     * Гонка двух читателей безопасна: оба запишут равные строки.
+     */
+    public String foldedTitle(int slot) {
+        String folded = foldedTitles[slot];
+        if (folded == null) {
+            folded = titles[slot].toLowerCase();
+            foldedTitles[slot] = folded;
+        }
+        return folded;
+    }
+
+    public Game.Genre genre(int slot) { return GENRES[genres[slot]]; }
+    public int genreOrdinal(int slot) { return genres[slot]; }
+    public int year(int slot) { return years[slot]; }
+    public int ratingTenths(int slot) { return ratings[slot]; }
+    public double rating(int slot) { return ratings[slot] / 10.0; }
+    public String developer(int slot) { return developerDictionary.decode(developers[slot]); }
+    public int developerCode(int slot) { return developers[slot]; }
+    public String platform(int slot) { return platformDictionary.decode(platforms[slot]); }
+    public int platformCode(int slot) { return platforms[slot]; }
+
+    public StringDictionary developerDictionary() { return developerDictionary; }
+    public StringDictionary platformDictionary() { return platformDictionary; }
+
+    public int size() { return size; }
+    public int length() { return length; }
+    public boolean isLive(int slot) { return live.get(slot); }
+
+    /**
+     * Следующий живой слот начиная с from или -1
+     */
+    public int nextSlot(int from) { return live.nextSetBit(from); }
+
+    /**
+     * Копия множества живых слотов
+     */
+    public BitSet liveSlots() { return (BitSet) live.clone(); }
+
+    /**
+     * Нужно ли уплотнение: удалённых слотов больше, чем живых
+     */
+    boolean needsCompaction() {
+        return length - size > Math.max(size, 16);
+    }
+
+    /**
+     * Сдвиг живых игр к началу массивов с сохранением порядка
+     */
+    void compact() {
+        int to = 0;
+        for (int from = live.nextSetBit(0); from >= 0; from = live.nextSetBit(from + 1)) {
+            idHi[to] = idHi[from];
+            idLo[to] = idLo[from];
+            titles[to] = titles[from];
+            foldedTitles[to] = foldedTitles[from];
+            genres[to] = genres[from];
+            years[to] = years[from];
+            ratings[to] = ratings[from];
+            developers[to] = developers[from];
+            platforms[to] = platforms[from];
+            to++;
+        }
+        Arrays.fill(titles, to, length, null);
+        Arrays.fill(foldedTitles, to, length, null);
+        length = to;
+        live.clear();
+        live.set(0, to);
+        rebuildIdTable(idTable.length);
+    }
+
+    private void grow() {
+        int capacity = Math.max(years.length * 2, 16);
+        idHi = Arrays.copyOf(idHi, capacity);
+        idLo = Arrays.copyOf(idLo, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        foldedTitles = Arrays.copyOf(foldedTitles, capacity);
+        genres = Arrays.copyOf(genres, capacity);
+        years = Arrays.copyOf(years, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        developers = Arrays.copyOf(developers, capacity);
+        platforms = Arrays.copyOf(platforms, capacity);
+    }
+
+    private void insertId(int slot) {
+        int mask = idTable.length - 1;
+        int i = hash(idHi[slot], idLo[slot]) & mask;
+        while (idTable[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        idTable[i] = slot + 1;
+    }
+
+    private void deleteId(int slot) {
+        int mask = idTable.length - 1;
+        int i = hash(idHi[slot], idLo[slot]) & mask;
+        while (idTable[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        // Обратный сдвиг: переносим следующие элементы цепочки на место удалённого
+        int hole = i;
+        for (int j = (i + 1) & mask; idTable[j] != 0; j = (j + 1) & mask) {
+            int other = idTable[j] - 1;
+            int home = hash(idHi[other], idLo[other]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                idTable[hole] = idTable[j];
+                hole = j;
+            }
+        }
+        idTable[hole] = 0;
+    }
+
+    private void rebuildIdTable(int capacity) {
+        idTable = new int[capacity];
+        int mask = capacity - 1;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            int i = hash(idHi[slot], idLo[slot]) & mask;
+            while (idTable[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            idTable[i] = slot + 1;
+        }
+    }
+
+    private static int hash(long hi, long lo) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * Рейтинг хранится с точностью до десятой, как он показывается и сохраняется
+     */
+    static int toTenths(double rating) {
+        return (int) Math.round(rating * 10);
+    }
+
+    /**
+     * Идентификаторы хранятся как UUID. Другие строки не принимаются, в том
+     * числе сокращённые формы вроде 1-2-3-4-5: сохранённый идентификатор
+     * отличался бы от исходного
+     */
+    static UUID toUuid(String id) {
+        if (id.length() != 36 || id.charAt(8) != '-' || id.charAt(13) != '-'
+                || id.charAt(18) != '-' || id.charAt(23) != '-') {
+            throw new IllegalArgumentException("идентификатор игры должен быть UUID: " + id);
+        }
+        return UUID.fromString(id);
+    }
+}
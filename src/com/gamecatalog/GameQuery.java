@@ -0,0 +1,135 @@
+package com.gamecatalog;
+
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Условия фильтра каталога, разобранные один раз при их изменении:
+ * жанр, год и порог рейтинга хранятся числами, текст поиска - уже
+ * в нижнем регистре. Запрос не зависит от окна, поэтому им пользуются
+ * и пакетный режим, и замеры производительности.
+ */
+public final class GameQuery {
+    /**
+     * Год не ограничен
+     */
+    public static final int ANY_YEAR = Integer.MIN_VALUE;
+
+    /**
+     * Запрос без условий - весь каталог
+     */
+    public static final GameQuery ALL = new GameQuery(null, ANY_YEAR, 0, SearchField.TITLE, "");
+
+    private final Game.Genre genre;
+    private final int year;
+    private final int minRatingTenths;
+    private final SearchField field;
+    private final String needle;
+
+    private GameQuery(Game.Genre genre, int year, int minRatingTenths, SearchField field, String needle) {
+        this.genre = genre;
+        this.year = year;
+        this.minRatingTenths = minRatingTenths;
+        this.field = field;
+        this.needle = needle;
+    }
+
+    /**
+     * Запрос из условий фильтра; null в жанре или годе - без ограничения,
+     * текст ищется в поле без учёта регистра
+     */
+    public static GameQuery of(Game.Genre genre, Integer year, double minRating, SearchField field, String text) {
+        String needle = text == null ? "" : text.toLowerCase().trim();
+        int tenths = Math.max(0, GameColumns.toTenths(minRating));
+        return new GameQuery(genre, year == null ? ANY_YEAR : year, tenths,
+                Objects.requireNonNull(field), needle);
+    }
+
+    public Game.Genre genre() { return genre; }
+    public int year() { return year; }
+    public int minRatingTenths() { return minRatingTenths; }
+    public SearchField field() { return field; }
+    public String needle() { return needle; }
+    public boolean hasText() { return !needle.isEmpty(); }
+
+    /**
+     * Слоты подходящих игр: битовые и триграммный индексы хранилища
+     */
+    public BitSet select(CatalogStore store) {
+        return store.filter(this);
+    }
+
+    /**
+     * Проверка одного слота по колонкам. В цепочку попадают только заданные
+     * условия, каждое сравнивает числа или строки, уже приведённые к нижнему регистру.
+     * Для сканирования без индексов; колонки читаются под блокировкой чтения.
+     */
+    public IntPredicate compile(GameColumns columns) {
+        IntPredicate predicate = columns::isLive;
+        if (genre != null) {
+            int ordinal = genre.ordinal();
+            predicate = predicate.and(slot -> columns.genreOrdinal(slot) == ordinal);
+        }
+        if (year != ANY_YEAR) {
+            predicate = predicate.and(slot -> columns.year(slot) == year);
+        }
+        if (minRatingTenths > 0) {
+            predicate = predicate.and(slot -> columns.ratingTenths(slot) >= minRatingTenths);
+        }
+        if (hasText()) {
+            predicate = predicate.and(switch (field) {
+                case TITLE -> slot -> columns.foldedTitle(slot).contains(needle);
+                case DEVELOPER -> codeMatcher(columns.developerDictionary(), columns::developerCode);
+                case PLATFORM -> codeMatcher(columns.platformDictionary(), columns::platformCode);
+            });
+        }
+        return predicate;
+    }
+
+    /**
+     * Слоты подходящих игр полным проходом по колонкам без индексов
+     */
+    public BitSet scan(GameColumns columns) {
+        IntPredicate predicate = compile(columns);
+        BitSet result = new BitSet();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            if (predicate.test(slot)) {
+                result.set(slot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Значения словаря проверяются один раз, для строк остаётся сравнение кода
+     */
+    private IntPredicate codeMatcher(StringDictionary dictionary, IntUnaryOperator code) {
+        boolean[] matches = new boolean[dictionary.size()];
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = dictionary.decode(i).toLowerCase().contains(needle);
+        }
+        return slot -> matches[code.applyAsInt(slot)];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameQuery)) return false;
+        GameQuery other = (GameQuery) o;
+        return year == other.year && minRatingTenths == other.minRatingTenths && genre == other.genre
+                && field == other.field && needle.equals(other.needle);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(genre, year, minRatingTenths, field, needle);
+    }
+
+    @Override
+    public String toString() {
+        return "GameQuery{genre=" + genre + ", year=" + (year == ANY_YEAR ? "любой" : year)
+                + ", minRating=" + minRatingTenths / 10.0 + ", " + field + " содержит '" + needle + "'}";
+    }
+}
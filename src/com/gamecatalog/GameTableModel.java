@@ -0,0 +1,144 @@
+package com.gamecatalog;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Модель таблицы поверх колонок каталога.
+ * Строки берутся из RowSource окнами: в памяти только слоты видимых строк
+ * и запас вокруг них, значения ячеек формируются при отрисовке строки.
+ * Поэтому прокрутка даже десятков миллионов строк не растит память.
+ */
+class GameTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {"№", "Название", "Жанр", "Год", "Рейтинг", "Разработчик", "Платформа"};
+    private static final String[] GENRE_NAMES = new String[Game.Genre.values().length];
+    private static final String[] RATING_TEXT = new String[BitmapIndex.MAX_RATING + 1];
+
+    static {
+        for (Game.Genre genre : Game.Genre.values()) {
+            GENRE_NAMES[genre.ordinal()] = genre.toString().replace("_", "/");
+        }
+        for (int r = 0; r < RATING_TEXT.length; r++) {
+            RATING_TEXT[r] = String.format("%.1f", r / 10.0);
+        }
+    }
+
+    // Сколько строк сверх видимых читается заранее с каждой стороны
+    private static final int PREFETCH_ROWS = 100;
+
+    private final CatalogStore store;
+    private RowSource rows = RowSource.EMPTY;
+    // Окно: слоты строк windowStart .. windowStart + windowSize - 1
+    private int[] window = new int[0];
+    private int windowStart;
+    private int windowSize;
+
+    GameTableModel(CatalogStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Замена набора строк: одна подмена источника и одно событие
+     */
+    void setRows(RowSource rows) {
+        this.rows = rows;
+        windowSize = 0;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Видимые строки изменились: окно сдвигается, если они из него вышли
+     */
+    void prefetch(int firstRow, int lastRow) {
+        int from = Math.max(0, firstRow - PREFETCH_ROWS);
+        int to = Math.min(rows.size(), lastRow + 1 + PREFETCH_ROWS);
+        if (to <= from) {
+            // Строки устарели (индекс сброшен) и ждут нового запроса
+            windowSize = 0;
+            return;
+        }
+        if (from >= windowStart && to <= windowStart + windowSize) {
+            return;
+        }
+        if (window.length < to - from) {
+            window = new int[to - from];
+        }
+        rows.fetch(from, window, to - from);
+        windowStart = from;
+        windowSize = to - from;
+    }
+
+    /**
+     * Слот игры в строке таблицы или -1, если строки уже нет (строки устарели
+     * и ждут нового запроса)
+     */
+    int slotAt(int row) {
+        if (row < 0 || row >= rows.size()) {
+            return -1;
+        }
+        if (row < windowStart || row >= windowStart + windowSize) {
+            prefetch(row, row);
+        }
+        return window[row - windowStart];
+    }
+
+    /**
+     * Поле сортировки столбца; столбцы идут в порядке SortKey, «№» - порядок каталога
+     */
+    static SortKey sortKey(int column) {
+        return SortKey.values()[column];
+    }
+
+    @Override
+    public int getRowCount() { return rows.size(); }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row >= rows.size()) {
+            // Таблица ещё не получила событие о новых строках
+            return null;
+        }
+        // Каталог меняется и вне потока Swing (перечитывание файла): пока идёт
+        // пакет изменений, ячейка пуста, а после него таблица перезапрашивается
+        Lock lock = store.readLock();
+        if (!lock.tryLock()) {
+            return null;
+        }
+        try {
+            GameColumns columns = store.columns();
+            int slot = slotAt(row);
+            if (slot < 0 || !columns.isLive(slot)) {
+                return null;
+            }
+            return switch (column) {
+                case 0 -> row + 1;
+                case 1 -> columns.title(slot);
+                case 2 -> GENRE_NAMES[columns.genreOrdinal(slot)];
+                case 3 -> columns.year(slot);
+                case 4 -> formatRating(columns.ratingTenths(slot));
+                case 5 -> columns.developer(slot);
+                case 6 -> columns.platform(slot);
+                default -> null;
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    private static String formatRating(int tenths) {
+        return tenths >= 0 && tenths < RATING_TEXT.length ? RATING_TEXT[tenths] : String.format("%.1f", tenths / 10.0);
+    }
+}
@@ -0,0 +1,67 @@
+package com.gamecatalog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Итог загрузки каталога: число игр и некорректные строки с номерами
+ */
+public final class ImportReport {
+    static final int MAX_MESSAGES = 100;
+
+    private long rows;
+    private long errors;
+    private final List<String> messages = new ArrayList<>();
+
+    void rowLoaded() {
+        rows++;
+    }
+
+    void rowsLoaded(long count) {
+        rows += count;
+    }
+
+    /**
+     * Пропущенная строка; сохраняются только первые MAX_MESSAGES сообщений
+     */
+    void error(long line, String message) {
+        errors++;
+        if (messages.size() < MAX_MESSAGES) {
+            messages.add("строка " + line + ": " + message);
+        }
+    }
+
+    /**
+     * Добавление итогов другой части того же файла
+     */
+    void merge(ImportReport other) {
+        rows += other.rows;
+        errors += other.errors;
+        for (String message : other.messages) {
+            if (messages.size() < MAX_MESSAGES) {
+                messages.add(message);
+            }
+        }
+    }
+
+    public long rows() { return rows; }
+    public long errors() { return errors; }
+    public List<String> messages() { return messages; }
+
+    /**
+     * Сводка для пользователя: число пропущенных строк и первые сообщения
+     */
+    public String summary(int maxMessages) {
+        if (errors == 0) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("Пропущено некорректных строк: ").append(errors);
+        for (int i = 0; i < Math.min(maxMessages, messages.size()); i++) {
+            text.append("\n  ").append(messages.get(i));
+        }
+        if (errors > maxMessages) {
+            text.append("\n  ...");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.gamecatalog;
+
+import java.util.Arrays;
+
+/**
+ * Растущий массив int без упаковки в Integer
+ */
+final class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() { this(4); }
+    IntList(int capacity) { values = new int[Math.max(1, capacity)]; }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Вставка в отсортированный список без повторов
+     */
+    void addSorted(int value) {
+        if (size > 0 && values[size - 1] < value) {
+            add(value);
+            return;
+        }
+        int i = Arrays.binarySearch(values, 0, size, value);
+        if (i >= 0) {
+            return;
+        }
+        i = -i - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(values, i, values, i + 1, size - i);
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Удаление из отсортированного списка
+     */
+    void removeSorted(int value) {
+        int i = Arrays.binarySearch(values, 0, size, value);
+        if (i >= 0) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+        }
+    }
+
+    int get(int index) { return values[index]; }
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+    void clear() { size = 0; }
+    int[] toArray() { return Arrays.copyOf(values, size); }
+}
@@ -0,0 +1,408 @@
+package com.gamecatalog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Потоковый разбор JSON (RFC 8259) по лексемам без построения дерева.
+ * Символы читаются через переиспользуемый буфер, текст строки или числа
+ * копируется в общий массив, а String создаётся только по запросу,
+ * поэтому память не зависит от размера документа.
+ */
+final class JsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    enum Token {
+        BEGIN_ARRAY, END_ARRAY, BEGIN_OBJECT, END_OBJECT, NAME, STRING, NUMBER, TRUE, FALSE, NULL, END_DOCUMENT
+    }
+
+    // Что ожидается в текущем массиве или объекте
+    private static final byte ARRAY_FIRST = 0;
+    private static final byte ARRAY_NEXT = 1;
+    private static final byte OBJECT_FIRST = 2;
+    private static final byte OBJECT_NEXT = 3;
+    private static final byte OBJECT_VALUE = 4;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+
+    private byte[] stack = new byte[16];
+    private int depth;
+    private boolean documentStarted;
+
+    // Текст последней строки, имени или числа
+    private char[] text = new char[256];
+    private int length;
+
+    JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Следующая лексема; нарушение синтаксиса - IOException с номером строки
+     */
+    Token next() throws IOException {
+        int c = skipWhitespace();
+        if (depth == 0) {
+            if (documentStarted) {
+                if (c >= 0) {
+                    throw error("лишние символы после конца документа");
+                }
+                return Token.END_DOCUMENT;
+            }
+            if (c < 0) {
+                throw error("пустой документ");
+            }
+            documentStarted = true;
+            return value(c);
+        }
+        switch (stack[depth - 1]) {
+            case ARRAY_FIRST -> {
+                if (c == ']') {
+                    depth--;
+                    return Token.END_ARRAY;
+                }
+                stack[depth - 1] = ARRAY_NEXT;
+                return value(c);
+            }
+            case ARRAY_NEXT -> {
+                if (c == ']') {
+                    depth--;
+                    return Token.END_ARRAY;
+                }
+                expect(c, ',');
+                return value(skipWhitespace());
+            }
+            case OBJECT_FIRST, OBJECT_NEXT -> {
+                if (c == '}') {
+                    depth--;
+                    return Token.END_OBJECT;
+                }
+                if (stack[depth - 1] == OBJECT_NEXT) {
+                    expect(c, ',');
+                    c = skipWhitespace();
+                }
+                expect(c, '"');
+                readString();
+                stack[depth - 1] = OBJECT_VALUE;
+                return Token.NAME;
+            }
+            default -> {
+                expect(c, ':');
+                stack[depth - 1] = OBJECT_NEXT;
+                return value(skipWhitespace());
+            }
+        }
+    }
+
+    /**
+     * Пропуск значения целиком (после NAME или на месте элемента массива)
+     */
+    void skipValue() throws IOException {
+        skipRest(next());
+    }
+
+    /**
+     * Пропуск остатка значения, первая лексема которого уже прочитана
+     */
+    void skipRest(Token first) throws IOException {
+        if (first != Token.BEGIN_ARRAY && first != Token.BEGIN_OBJECT) {
+            return;
+        }
+        int target = depth - 1;
+        while (depth > target) {
+            next();
+        }
+    }
+
+    /**
+     * Текст последней строки, имени или числа
+     */
+    String string() {
+        return new String(text, 0, length);
+    }
+
+    /**
+     * Текст с повторяющимся значением - экземпляр из общего пула строк
+     */
+    String pooledString() {
+        return StringPool.SHARED.intern(text, 0, length);
+    }
+
+    /**
+     * Сравнение текста с образцом без создания строки
+     */
+    boolean textEquals(String value) {
+        if (value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text[i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Целое из текста числа или строки без создания String
+     */
+    int intValue() {
+        int i = length > 0 && text[0] == '-' ? 1 : 0;
+        if (i == length || length - i > 9) {
+            // Пустое или слишком длинное для быстрого пути
+            return Integer.parseInt(string().trim());
+        }
+        int value = 0;
+        for (; i < length; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(string().trim());
+            }
+            value = value * 10 + digit;
+        }
+        return text[0] == '-' ? -value : value;
+    }
+
+    /**
+     * Рейтинг в десятых долях. Запись вида 8 или 8.5 разбирается по символам,
+     * остальное - через Double.parseDouble с тем же округлением.
+     */
+    int tenthsValue() {
+        int i = 0, whole = 0;
+        while (i < length && i < 6 && text[i] >= '0' && text[i] <= '9') {
+            whole = whole * 10 + text[i++] - '0';
+        }
+        if (i > 0 && i == length) {
+            return whole * 10;
+        }
+        if (i > 0 && i == length - 2 && text[i] == '.' && text[i + 1] >= '0' && text[i + 1] <= '9') {
+            return whole * 10 + text[i + 1] - '0';
+        }
+        return GameColumns.toTenths(Double.parseDouble(string()));
+    }
+
+    /**
+     * Идентификатор в каноническом виде UUID (8-4-4-4-12) - в id[0], id[1];
+     * false - текст другого вида
+     */
+    boolean uuidValue(long[] id) {
+        if (length != 36 || text[8] != '-' || text[13] != '-' || text[18] != '-' || text[23] != '-') {
+            return false;
+        }
+        long hi = 0, lo = 0;
+        for (int i = 0; i < 36; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            int digit = Character.digit(text[i], 16);
+            if (digit < 0) {
+                return false;
+            }
+            if (i < 19) {
+                hi = hi << 4 | digit;
+            } else {
+                lo = lo << 4 | digit;
+            }
+        }
+        id[0] = hi;
+        id[1] = lo;
+        return true;
+    }
+
+    /**
+     * Строка документа, на которой остановился разбор
+     */
+    long line() { return line; }
+
+    private Token value(int c) throws IOException {
+        switch (c) {
+            case '{' -> {
+                push(OBJECT_FIRST);
+                return Token.BEGIN_OBJECT;
+            }
+            case '[' -> {
+                push(ARRAY_FIRST);
+                return Token.BEGIN_ARRAY;
+            }
+            case '"' -> {
+                readString();
+                return Token.STRING;
+            }
+            case 't' -> {
+                literal("rue");
+                return Token.TRUE;
+            }
+            case 'f' -> {
+                literal("alse");
+                return Token.FALSE;
+            }
+            case 'n' -> {
+                literal("ull");
+                return Token.NULL;
+            }
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    readNumber(c);
+                    return Token.NUMBER;
+                }
+                throw error(c < 0 ? "неожиданный конец документа" : "неожиданный символ '" + (char) c + "'");
+            }
+        }
+    }
+
+    private void push(byte state) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = state;
+    }
+
+    /**
+     * Число копируется как есть; его разбирает тот, кто знает нужный тип
+     */
+    private void readNumber(int first) throws IOException {
+        length = 0;
+        append((char) first);
+        int c = peek();
+        while ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+            append((char) read());
+            c = peek();
+        }
+    }
+
+    /**
+     * Строка до закрывающей кавычки: участки без escape-последовательностей
+     * копируются из буфера целиком. Управляющие символы (в том числе перевод
+     * строки) внутри строки запрещены (RFC 8259) - только в виде escape.
+     */
+    private void readString() throws IOException {
+        length = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                throw error("незакрытая строка");
+            }
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    break;
+                }
+                position++;
+            }
+            append(buffer, start, position - start);
+            if (position == limit) {
+                continue;
+            }
+            char c = buffer[position++];
+            if (c == '"') {
+                return;
+            }
+            if (c < 0x20) {
+                throw error("управляющий символ внутри строки");
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"', '\\', '/' -> append((char) escaped);
+                case 'b' -> append('\b');
+                case 'f' -> append('\f');
+                case 'n' -> append('\n');
+                case 'r' -> append('\r');
+                case 't' -> append('\t');
+                case 'u' -> append(readHex());
+                default -> throw error("неизвестная escape-последовательность");
+            }
+        }
+    }
+
+    private char readHex() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw error("некорректная последовательность \\u");
+            }
+            value = value * 16 + digit;
+        }
+        return (char) value;
+    }
+
+    private void literal(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw error("некорректное значение");
+            }
+        }
+    }
+
+    // Метка порядка байтов в начале файла считается пробелом
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == '\n') {
+                line++;
+            } else if (c != ' ' && c != '\t' && c != '\r' && c != '\uFEFF') {
+                return c;
+            }
+        }
+    }
+
+    private void expect(int c, char expected) throws IOException {
+        if (c != expected) {
+            throw error("ожидается '" + expected + "'");
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException("JSON, строка " + line + ": " + message);
+    }
+
+    private void append(char[] chars, int from, int count) {
+        if (length + count > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, length + count));
+        }
+        System.arraycopy(chars, from, text, length, count);
+        length += count;
+    }
+
+    private void append(char c) {
+        if (length == text.length) {
+            text = Arrays.copyOf(text, length * 2);
+        }
+        text[length++] = c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -3,31 +3,42 @@ package com.gamecatalog;
 import javax.swing.*;
 
 /**
- * Главный класс для запуска приложения
+ * Главный класс для запуска приложения.
+ * С аргументами командной строки работает в пакетном режиме без окна.
  */
 public class Main {
     public static void main(String[] args) {
-        // Запуск в потоке событий Swing
-        SwingUtilities.invokeLater(() -> {
-            try {
-                // Устанавливаем красивый стиль окон
-                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        StartupTimer.begin();
+        if (args.length > 0) {
+            System.exit(CatalogCli.run(args, System.out, System.err));
+        }
+        // Код окна вынесен во вложенный класс: иначе проверка байт-кода Main
+        // загружала бы классы AWT и в пакетном режиме
+        Window.show();
+    }
+
+    private static final class Window {
+        static void show() {
+            // Запуск в потоке событий Swing
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    // Устанавливаем красивый стиль окон
+                    UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
 
-            // Создаем и показываем главное окно
-            GameCatalogGUI frame = new GameCatalogGUI();
-            frame.setVisible(true);
+                // Создаем и показываем главное окно
+                GameCatalogGUI frame = new GameCatalogGUI();
+                frame.setVisible(true);
 
-            // Показываем приветственное сообщение
-            JOptionPane.showMessageDialog(frame,
-                    "Добро пожаловать в Каталог компьютерных игр!\n\n" +
-                            "В каталоге уже загружено 20 примеров игр.\n" +
-                            "Вы можете добавлять, редактировать, удалять игры,\n" +
-                            "сохранять и загружать каталог, просматривать статистику.",
-                    "Добро пожаловать!",
-                    JOptionPane.INFORMATION_MESSAGE);
-        });
+                // Приветствие покажется, когда загрузится каталог
+                frame.showWelcome(size ->
+                        "Добро пожаловать в Каталог компьютерных игр!\n\n" +
+                                "В каталоге загружено игр: " + size + ".\n" +
+                                "Вы можете добавлять, редактировать, удалять игры,\n" +
+                                "сохранять и загружать каталог, просматривать статистику.");
+            });
+        }
     }
-}
\ No newline at end of file
+}
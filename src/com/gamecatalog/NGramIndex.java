@@ -0,0 +1,114 @@
+package com.gamecatalog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс по триграммам строки в нижнем регистре.
+ * Для каждой триграммы хранится отсортированный список документов
+ * (слотов или кодов словаря), в которых она встречается.
+ */
+final class NGramIndex {
+    static final int N = 3;
+
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    void add(int doc, String lowered) {
+        for (long gram : grams(lowered)) {
+            postings.computeIfAbsent(gram, g -> new IntList()).addSorted(doc);
+        }
+    }
+
+    void remove(int doc, String lowered) {
+        for (long gram : grams(lowered)) {
+            IntList list = postings.get(gram);
+            if (list != null) {
+                list.removeSorted(doc);
+                if (list.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Документы, содержащие все триграммы подстроки (кандидаты, требующие проверки).
+     * null - подстрока короче триграммы, индекс не сужает поиск.
+     */
+    int[] candidates(String loweredNeedle) {
+        if (loweredNeedle.length() < N) {
+            return null;
+        }
+        long[] grams = grams(loweredNeedle);
+        IntList[] lists = new IntList[grams.length];
+        int smallest = 0;
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+            if (lists[i].size() < lists[smallest].size()) {
+                smallest = i;
+            }
+        }
+
+        // Пересечение: идём по самому короткому списку, в остальных - двоичный поиск
+        IntList result = new IntList(lists[smallest].size());
+        int[] positions = new int[lists.length];
+        outer:
+        for (int k = 0; k < lists[smallest].size(); k++) {
+            int doc = lists[smallest].get(k);
+            for (int i = 0; i < lists.length; i++) {
+                if (i != smallest) {
+                    positions[i] = seek(lists[i], positions[i], doc);
+                    if (positions[i] == lists[i].size() || lists[i].get(positions[i]) != doc) {
+                        continue outer;
+                    }
+                }
+            }
+            result.add(doc);
+        }
+        return result.toArray();
+    }
+
+    /**
+     * Первая позиция в списке, начиная с from, где значение не меньше doc
+     */
+    private static int seek(IntList list, int from, int doc) {
+        int lo = from, hi = list.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (list.get(mid) < doc) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Различные триграммы строки, упакованные в long по 16 бит на символ
+     */
+    private static long[] grams(String s) {
+        int count = Math.max(0, s.length() - N + 1);
+        long[] grams = new long[count];
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            long gram = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+            boolean seen = false;
+            for (int j = 0; j < distinct && !seen; j++) {
+                seen = grams[j] == gram;
+            }
+            if (!seen) {
+                grams[distinct++] = gram;
+            }
+        }
+        return distinct == count ? grams : Arrays.copyOf(grams, distinct);
+    }
+}
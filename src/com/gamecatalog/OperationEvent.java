@@ -0,0 +1,37 @@
+package com.gamecatalog;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JDK Flight Recorder на каждую замеренную операцию каталога:
+ * те же данные, что в CatalogMetrics, рядом с событиями GC и выделения памяти.
+ * Записывается, когда включена запись JFR (например, -XX:StartFlightRecording).
+ */
+@Name("com.gamecatalog.Operation")
+@Label("Операция каталога")
+@Category("Каталог игр")
+@Description("Фильтр, обновление таблицы, статистика, загрузка или сохранение каталога")
+@StackTrace(false)
+final class OperationEvent extends jdk.jfr.Event {
+    @Label("Операция")
+    String operation;
+
+    @Label("Строк просмотрено")
+    long rowsScanned;
+
+    @Label("Строк найдено")
+    long rowsMatched;
+
+    @Label("Прочитано")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Записано")
+    @DataAmount
+    long bytesWritten;
+}
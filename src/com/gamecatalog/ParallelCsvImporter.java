@@ -0,0 +1,336 @@
+package com.gamecatalog;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельная загрузка большого CSV.
+ * Файл делится на области равного размера, и в пуле fork-join каждая
+ * область проходится тем же автоматом кавычек, что у CsvReader
+ * (CsvReader.RecordBoundaries), сразу из всех его состояний: заранее
+ * неизвестно, не начинается ли область внутри поля в кавычках. Короткий
+ * последовательный шаг по областям выбирает для каждой проход из
+ * настоящего состояния, то есть первую границу записи в ней и номер её
+ * строки (переводы строк считаются в том же проходе). Части между
+ * границами разбираются параллельно и объединяются в порядке следования
+ * в файле, поэтому результат совпадает с последовательным чтением.
+ */
+final class ParallelCsvImporter {
+    private static final long MIN_CHUNK = 4L << 20;      // 4 МБ
+    private static final long MAX_CHUNK = 64L << 20;     // 64 МБ
+
+    private final ForkJoinPool pool;
+    private final long minChunk;
+    private final long maxChunk;
+
+    ParallelCsvImporter(ForkJoinPool pool) {
+        this(pool, MIN_CHUNK, MAX_CHUNK);
+    }
+
+    /**
+     * Размеры частей задаются явно (тесты делят небольшой файл на много частей)
+     */
+    ParallelCsvImporter(ForkJoinPool pool, long minChunk, long maxChunk) {
+        this.pool = pool;
+        this.minChunk = minChunk;
+        this.maxChunk = maxChunk;
+    }
+
+    /**
+     * Часть файла: байты [start, end), первая строка - line
+     */
+    private record Chunk(long start, long end, long line) {
+    }
+
+    /**
+     * Проход области из каждого начального состояния автомата: состояние
+     * в конце области, начало первой записи после перевода строки вне
+     * кавычек (-1 - такой нет) и число переводов строк до него; lines -
+     * все переводы строк области, от состояния они не зависят
+     */
+    private static final class Region {
+        final int[] exit = new int[CsvReader.RecordBoundaries.STATES];
+        final long[] boundary = new long[CsvReader.RecordBoundaries.STATES];
+        final long[] linesBefore = new long[CsvReader.RecordBoundaries.STATES];
+        long lines;
+    }
+
+    GameColumns load(Path file, ImportReport report) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel);
+            GameColumns[] parts = new GameColumns[chunks.size()];
+            ImportReport[] reports = new ImportReport[chunks.size()];
+            IOException[] failures = new IOException[chunks.size()];
+            CatalogFiles.CsvHeader header = new CatalogFiles.CsvHeader();
+            pool.invoke(new ParseTask(channel, chunks, header, parts, reports, failures, 0, chunks.size()));
+            // Части делятся по смещениям и бывают короче шапки: тогда следующие
+            // части читаются заново с продолжением правила шапки, как при
+            // последовательном чтении
+            for (int i = 1; i < parts.length && failures[0] == null && failures[i] == null
+                    && !header.dataStarted(); i++) {
+                parts[i] = new GameColumns();
+                reports[i] = new ImportReport();
+                parse(channel, chunks.get(i), header, parts[i], reports[i]);
+            }
+
+            GameColumns columns = new GameColumns();
+            for (int i = 0; i < parts.length; i++) {
+                if (failures[i] != null) {
+                    throw new IOException("Не удалось разобрать часть файла с байта " + chunks.get(i).start()
+                            + ": " + failures[i].getMessage(), failures[i]);
+                }
+                columns.appendAll(parts[i]);
+                report.merge(reports[i]);
+                parts[i] = null;
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Разбиение файла на части по переводам строк между записями
+     */
+    private List<Chunk> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long target = Math.max(minChunk, Math.min(maxChunk, size / (pool.getParallelism() * 4L)));
+        long start = skipBom(channel);
+        int count = (int) Math.max(1, (size - start + target - 1) / target);
+        Region[] regions = new Region[count];
+        IOException[] failures = new IOException[count];
+        pool.invoke(new ScanTask(channel, start, target, size, regions, failures, 0, count));
+        for (int i = 0; i < count; i++) {
+            if (failures[i] != null) {
+                throw new IOException("Не удалось прочитать файл с байта " + (start + i * target)
+                        + ": " + failures[i].getMessage(), failures[i]);
+            }
+        }
+
+        // Состояние автомата в начале каждой области известно только после
+        // предыдущей: цепочка идёт последовательно, но по областям, а не по байтам
+        List<Chunk> chunks = new ArrayList<>();
+        long chunkStart = start;
+        long chunkLine = 1;
+        long line = 1;
+        int state = new CsvReader.RecordBoundaries().state();
+        for (int i = 0; i < count; i++) {
+            Region region = regions[i];
+            long boundary = region.boundary[state];
+            if (i > 0 && boundary >= 0 && boundary < size) {
+                chunks.add(new Chunk(chunkStart, boundary, chunkLine));
+                chunkStart = boundary;
+                chunkLine = line + region.linesBefore[state];
+            }
+            line += region.lines;
+            state = region.exit[state];
+        }
+        chunks.add(new Chunk(chunkStart, size, chunkLine));
+        return chunks;
+    }
+
+    /**
+     * Разбор части; header - правило шапки для начала файла, null - шапки в части нет
+     */
+    private static void parse(FileChannel channel, Chunk chunk, CatalogFiles.CsvHeader header,
+                              GameColumns columns, ImportReport report) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+                chunk.start(), chunk.end() - chunk.start());
+        CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+        CsvReader csv = new CsvReader(
+                new CharArrayReader(chars.array(), chars.arrayOffset(), chars.remaining()), chunk.line());
+        if (header != null) {
+            CatalogFiles.readCsv(csv, columns, report, header);
+        } else {
+            while (csv.next()) {
+                if (!csv.isBlank()) {
+                    CatalogFiles.readCsvRecord(csv, columns, report);
+                }
+            }
+        }
+    }
+
+    private static long skipBom(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(3);
+        channel.read(head, 0);
+        return head.position() == 3 && (head.get(0) & 0xFF) == 0xEF && (head.get(1) & 0xFF) == 0xBB
+                && (head.get(2) & 0xFF) == 0xBF ? 3 : 0;
+    }
+
+    /**
+     * Проход областей [from, to) из всех состояний автомата: делится
+     * пополам, пока не останется одна область
+     */
+    private static final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final transient Region[] regions;
+        private final transient IOException[] failures;
+        private final long start;
+        private final long regionSize;
+        private final long size;
+        private final int from;
+        private final int to;
+
+        ScanTask(FileChannel channel, long start, long regionSize, long size, Region[] regions,
+                 IOException[] failures, int from, int to) {
+            this.channel = channel;
+            this.start = start;
+            this.regionSize = regionSize;
+            this.size = size;
+            this.regions = regions;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanTask(channel, start, regionSize, size, regions, failures, from, middle),
+                        new ScanTask(channel, start, regionSize, size, regions, failures, middle, to));
+                return;
+            }
+            long regionStart = start + from * regionSize;
+            long regionEnd = Math.min(size, regionStart + regionSize);
+            try {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+                        regionStart, regionEnd - regionStart);
+                regions[from] = scan(bytes, regionStart);
+            } catch (IOException e) {
+                failures[from] = e;
+            }
+        }
+
+        /**
+         * Автоматы из разных состояний идут по байтам вместе; совпавшие
+         * состояния дальше не расходятся, и такой автомат идёт один за всех
+         */
+        private static Region scan(MappedByteBuffer bytes, long offset) {
+            int states = CsvReader.RecordBoundaries.STATES;
+            Region region = new Region();
+            CsvReader.RecordBoundaries[] automata = new CsvReader.RecordBoundaries[states];
+            // same[k] - автомат, который ведёт состояние k; ведущие - те, у кого same[k] == k
+            int[] same = new int[states];
+            for (int k = 0; k < states; k++) {
+                automata[k] = new CsvReader.RecordBoundaries(k);
+                same[k] = k;
+                region.boundary[k] = -1;
+            }
+            int leaders = states;
+            long lines = 0;
+            int length = bytes.limit();
+            for (int i = 0; i < length; i++) {
+                byte b = bytes.get(i);
+                for (int k = 0; k < states; k++) {
+                    if (same[k] == k && automata[k].endsRecord(b) && b == '\n') {
+                        // Граница - первая для всех состояний, которые ведёт k и у которых её ещё нет
+                        for (int m = 0; m < states; m++) {
+                            if (same[m] == k && region.boundary[m] < 0) {
+                                region.boundary[m] = offset + i + 1;
+                                region.linesBefore[m] = lines + 1;
+                            }
+                        }
+                    }
+                }
+                if (b == '\n') {
+                    lines++;
+                }
+                if (leaders > 1) {
+                    leaders = merge(automata, same, region);
+                }
+            }
+            region.lines = lines;
+            for (int k = 0; k < states; k++) {
+                region.exit[k] = automata[same[k]].state();
+            }
+            return region;
+        }
+
+        /**
+         * Объединение ведущих автоматов с одинаковым состоянием; число ведущих
+         */
+        private static int merge(CsvReader.RecordBoundaries[] automata, int[] same, Region region) {
+            int leaders = 0;
+            for (int k = 0; k < same.length; k++) {
+                if (same[k] != k) {
+                    continue;
+                }
+                for (int j = 0; j < k; j++) {
+                    if (same[j] == j && automata[j].state() == automata[k].state()) {
+                        for (int m = 0; m < same.length; m++) {
+                            if (same[m] == k) {
+                                same[m] = j;
+                            }
+                        }
+                        break;
+                    }
+                }
+                if (same[k] == k) {
+                    leaders++;
+                }
+            }
+            return leaders;
+        }
+    }
+
+    /**
+     * Разбор диапазона частей: делится пополам, пока не останется одна часть
+     */
+    private static final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final transient List<Chunk> chunks;
+        private final transient CatalogFiles.CsvHeader header;
+        private final transient GameColumns[] parts;
+        private final transient ImportReport[] reports;
+        private final transient IOException[] failures;
+        private final int from;
+        private final int to;
+
+        ParseTask(FileChannel channel, List<Chunk> chunks, CatalogFiles.CsvHeader header, GameColumns[] parts,
+                  ImportReport[] reports, IOException[] failures, int from, int to) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.header = header;
+            this.parts = parts;
+            this.reports = reports;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(channel, chunks, header, parts, reports, failures, from, middle),
+                        new ParseTask(channel, chunks, header, parts, reports, failures, middle, to));
+                return;
+            }
+            try {
+                GameColumns columns = new GameColumns();
+                ImportReport report = new ImportReport();
+                // Шапка и заголовок бывают только в начале файла
+                parse(channel, chunks.get(from), from == 0 ? header : null, columns, report);
+                parts[from] = columns;
+                reports[from] = report;
+            } catch (IOException e) {
+                // load() сообщит, какая часть не прочиталась, с исходной причиной
+                failures[from] = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.gamecatalog;
+
+/**
+ * Отпечатки записей файла каталога и идентификаторы игр, загруженных из них.
+ * Открытая адресация по 64-битному отпечатку; одинаковые записи файла
+ * хранятся отдельными элементами с тем же ключом. Проход по файлу отмечает
+ * встреченные записи номером поколения, неотмеченные - исчезли из файла.
+ */
+final class RecordTable {
+    private long[] keys;
+    private long[] idHi;
+    private long[] idLo;
+    private int[] marks;
+    private int size;
+    private int generation;
+
+    RecordTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        idHi = new long[capacity];
+        idLo = new long[capacity];
+        marks = new int[capacity];
+    }
+
+    int size() { return size; }
+
+    /**
+     * Новый проход по файлу: все записи снова не отмечены
+     */
+    void nextGeneration() {
+        generation++;
+    }
+
+    /**
+     * Запись, встреченная в текущем проходе
+     */
+    void add(long key, long hi, long lo) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        insert(nonZero(key), hi, lo, generation);
+        size++;
+    }
+
+    /**
+     * Отметка ещё не встреченной записи с ключом; false - такой записи нет
+     */
+    boolean mark(long key) {
+        return mark(key, null);
+    }
+
+    /**
+     * Отметка записи с выдачей её идентификатора в id[0], id[1]
+     */
+    boolean mark(long key, long[] id) {
+        key = nonZero(key);
+        int mask = keys.length - 1;
+        for (int i = home(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key && marks[i] != generation) {
+                marks[i] = generation;
+                if (id != null) {
+                    id[0] = idHi[i];
+                    id[1] = idLo[i];
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    interface EntryConsumer {
+        void accept(long key, long hi, long lo);
+    }
+
+    /**
+     * Записи, не встреченные в текущем проходе
+     */
+    void forEachUnmarked(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && marks[i] != generation) {
+                action.accept(keys[i], idHi[i], idLo[i]);
+            }
+        }
+    }
+
+    /**
+     * Удаление записи с ключом и идентификатором
+     */
+    void remove(long key, long hi, long lo) {
+        key = nonZero(key);
+        int mask = keys.length - 1;
+        int i = home(key, mask);
+        while (keys[i] != key || idHi[i] != hi || idLo[i] != lo) {
+            if (keys[i] == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // Обратный сдвиг, как в таблице идентификаторов GameColumns
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            if (((j - home(keys[j], mask)) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                idHi[hole] = idHi[j];
+                idLo[hole] = idLo[j];
+                marks[hole] = marks[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        size--;
+    }
+
+    private void insert(long key, long hi, long lo, int mark) {
+        int mask = keys.length - 1;
+        int i = home(key, mask);
+        while (keys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        idHi[i] = hi;
+        idLo[i] = lo;
+        marks[i] = mark;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys, oldHi = idHi, oldLo = idLo;
+        int[] oldMarks = marks;
+        keys = new long[capacity];
+        idHi = new long[capacity];
+        idLo = new long[capacity];
+        marks = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                insert(oldKeys[i], oldHi[i], oldLo[i], oldMarks[i]);
+            }
+        }
+    }
+
+    // Ноль обозначает пустую ячейку
+    private static long nonZero(long key) {
+        return key == 0 ? 1 : key;
+    }
+
+    private static int home(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32) & mask;
+    }
+}
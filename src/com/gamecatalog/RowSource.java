@@ -0,0 +1,97 @@
+package com.gamecatalog;
+
+import java.util.BitSet;
+
+/**
+ * Строки таблицы без разворачивания в массив: по номеру строки выдаются
+ * слоты игр только для видимого окна. Число строк известно сразу,
+ * поэтому полоса прокрутки отражает весь результат.
+ */
+public interface RowSource {
+    RowSource EMPTY = of(new int[0]);
+
+    /**
+     * Через сколько строк запоминается позиция для быстрого перехода к строке
+     */
+    int CHECKPOINT_STEP = 4096;
+
+    int size();
+
+    /**
+     * Слоты строк from .. from + count - 1 в slots[0 .. count - 1]
+     */
+    void fetch(int from, int[] slots, int count);
+
+    /**
+     * Строки из готового массива слотов (небольшие результаты)
+     */
+    static RowSource of(int[] slots) {
+        return new RowSource() {
+            @Override
+            public int size() { return slots.length; }
+
+            @Override
+            public void fetch(int from, int[] out, int count) {
+                System.arraycopy(slots, from, out, 0, count);
+            }
+        };
+    }
+
+    /**
+     * Строки в порядке слотов множества
+     */
+    static RowSource of(BitSet slots) {
+        return new BitSetRows(slots, false);
+    }
+
+    /**
+     * Строки в порядке слотов множества или в обратном
+     */
+    static RowSource of(BitSet slots, boolean descending) {
+        return new BitSetRows(slots, descending);
+    }
+
+    /**
+     * Слоты множества по порядку; каждый CHECKPOINT_STEP-й запомнен,
+     * поэтому переход к строке стоит не больше CHECKPOINT_STEP шагов
+     */
+    final class BitSetRows implements RowSource {
+        private final BitSet slots;
+        private final boolean descending;
+        private final int size;
+        private final int[] checkpoints;
+
+        BitSetRows(BitSet slots, boolean descending) {
+            this.slots = slots;
+            this.descending = descending;
+            this.size = slots.cardinality();
+            this.checkpoints = new int[(size + CHECKPOINT_STEP - 1) / CHECKPOINT_STEP];
+            int row = 0;
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1), row++) {
+                if (row % CHECKPOINT_STEP == 0) {
+                    checkpoints[row / CHECKPOINT_STEP] = slot;
+                }
+            }
+        }
+
+        @Override
+        public int size() { return size; }
+
+        @Override
+        public void fetch(int from, int[] out, int count) {
+            if (count == 0) {
+                return;
+            }
+            // По убыванию читаются те же слоты с конца и раскладываются наоборот
+            int first = descending ? size - from - count : from;
+            int slot = checkpoints[first / CHECKPOINT_STEP];
+            for (int skip = first % CHECKPOINT_STEP; skip > 0; skip--) {
+                slot = slots.nextSetBit(slot + 1);
+            }
+            for (int i = 0; i < count; i++) {
+                out[descending ? count - 1 - i : i] = slot;
+                slot = slots.nextSetBit(slot + 1);
+            }
+        }
+    }
+}
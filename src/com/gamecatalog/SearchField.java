@@ -0,0 +1,8 @@
+package com.gamecatalog;
+
+/**
+ * Поле, по которому выполняется текстовый поиск
+ */
+public enum SearchField {
+    TITLE, DEVELOPER, PLATFORM
+}
@@ -0,0 +1,121 @@
+package com.gamecatalog;
+
+import javax.swing.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Фоновый поиск с подавлением дребезга ввода.
+ * Запрос запускается, только если за время ожидания не пришёл новый;
+ * более новый запрос отменяет выполняющийся, а в таблицу попадает
+ * только результат последнего запроса. Запросы идут в одном рабочем потоке:
+ * отменённый запрос прерывается в ближайшей точке отмены циклов индексов
+ * (CatalogExecutors.checkCancelled), и полные проходы не копятся параллельно.
+ */
+final class SearchPipeline {
+    private final long debounceMillis;
+    private final Consumer<RowSource> publisher;
+    private final ScheduledExecutorService scheduler = CatalogExecutors.newScheduler("search-debounce");
+    private final ExecutorService worker = CatalogExecutors.newSerialExecutor("search");
+
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> pending;
+    private Future<?> running;
+
+    // Счётчики для подбора окна ожидания
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * publisher вызывается в потоке событий Swing
+     */
+    SearchPipeline(long debounceMillis, Consumer<RowSource> publisher) {
+        this.debounceMillis = debounceMillis;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Новый запрос; query выполняется в фоновом потоке и возвращает строки для таблицы
+     */
+    synchronized void submit(Supplier<RowSource> query) {
+        long current = generation.incrementAndGet();
+        submitted.incrementAndGet();
+        if (pending != null && pending.cancel(false)) {
+            coalesced.incrementAndGet();
+        }
+        pending = scheduler.schedule(() -> start(current, query), debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void start(long current, Supplier<RowSource> query) {
+        if (current != generation.get()) {
+            coalesced.incrementAndGet();
+            return;
+        }
+        // Устаревший запрос сам учтёт отмену, увидев новое поколение
+        if (running != null) {
+            running.cancel(true);
+        }
+        running = worker.submit(() -> {
+            if (current != generation.get()) {
+                // Отменён, пока ждал в очереди
+                cancelled.incrementAndGet();
+                return;
+            }
+            RowSource rows;
+            try {
+                rows = query.get();
+            } catch (CancellationException e) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            if (current != generation.get() || Thread.currentThread().isInterrupted()) {
+                cancelled.incrementAndGet();
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                // Пока результат шёл в очередь событий, мог прийти новый запрос
+                if (current == generation.get()) {
+                    published.incrementAndGet();
+                    publisher.accept(rows);
+                } else {
+                    cancelled.incrementAndGet();
+                }
+            });
+        });
+    }
+
+    /**
+     * Отмена ожидающих и выполняющихся запросов без публикации
+     */
+    synchronized void cancelAll() {
+        generation.incrementAndGet();
+        if (pending != null && pending.cancel(false)) {
+            coalesced.incrementAndGet();
+        }
+        if (running != null) {
+            running.cancel(true);
+        }
+    }
+
+    long submitted() { return submitted.get(); }
+    long coalesced() { return coalesced.get(); }
+    long cancelled() { return cancelled.get(); }
+    long published() { return published.get(); }
+
+    /**
+     * Краткая сводка счётчиков
+     */
+    String report() {
+        return String.format("запросов: %d, объединено: %d, отменено: %d, показано: %d (окно %d мс)",
+                submitted(), coalesced(), cancelled(), published(), debounceMillis);
+    }
+}
@@ -0,0 +1,466 @@
+package com.gamecatalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Порядки сортировки каталога: для каждого поля - перестановка живых слотов,
+ * упорядоченная по значению поля, при равенстве - по слоту.
+ * Перестановка строится при первом запросе и затем поддерживается при
+ * добавлении, изменении и удалении игр, поэтому упорядочить найденные игры -
+ * значит один раз пройти по перестановке.
+ * Строки сравниваются по ключу сопоставления: нижний регистр, «ё» как «е»,
+ * латиница перед кириллицей.
+ */
+final class SortIndex implements CatalogListener {
+    private static final SortKey[] KEYS = SortKey.values();
+    // Меньшую долю каталога выгоднее отсортировать отдельно, чем проходить перестановку
+    private static final int DIRECT_SORT_RATIO = 32;
+
+    private final CatalogStore store;
+    // Перестановки по ключам; null - не построена или устарела
+    private final int[][] orders = new int[KEYS.length][];
+    private final int[] sizes = new int[KEYS.length];
+    // Ранги кодов словарей в порядке сопоставления значений
+    private int[] developerRanks = new int[0];
+    private int[] platformRanks = new int[0];
+    // Перестановку читает окно строк: менять её на месте нельзя,
+    // первое изменение после этого работает с копией
+    private final boolean[] shared = new boolean[KEYS.length];
+    // Счётчик сбросов (уплотнение, загрузка): после сброса слоты окон строк
+    // указывают на другие игры, и окна становятся пустыми до нового запроса.
+    // Окна читают его из потока событий без блокировки
+    private volatile int resets;
+
+    SortIndex(CatalogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public synchronized void rowAdded(int slot) {
+        GameColumns columns = store.columns();
+        for (SortKey key : KEYS) {
+            int[] order = orders[key.ordinal()];
+            if (order == null) {
+                continue;
+            }
+            int size = sizes[key.ordinal()];
+            int position = -search(key, columns, order, size, slot) - 1;
+            if (size == order.length || shared[key.ordinal()]) {
+                order = Arrays.copyOf(order, size == order.length ? Math.max(16, size * 2) : order.length);
+                orders[key.ordinal()] = order;
+                shared[key.ordinal()] = false;
+            }
+            System.arraycopy(order, position, order, position + 1, size - position);
+            order[position] = slot;
+            sizes[key.ordinal()]++;
+        }
+    }
+
+    @Override
+    public synchronized void rowRemoved(int slot) {
+        GameColumns columns = store.columns();
+        for (SortKey key : KEYS) {
+            int[] order = orders[key.ordinal()];
+            if (order == null) {
+                continue;
+            }
+            int size = sizes[key.ordinal()];
+            int position = search(key, columns, order, size, slot);
+            if (shared[key.ordinal()]) {
+                order = order.clone();
+                orders[key.ordinal()] = order;
+                shared[key.ordinal()] = false;
+            }
+            System.arraycopy(order, position + 1, order, position, size - position - 1);
+            sizes[key.ordinal()]--;
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        Arrays.fill(orders, null);
+        Arrays.fill(sizes, 0);
+        Arrays.fill(shared, false);
+        developerRanks = new int[0];
+        platformRanks = new int[0];
+        resets++;
+    }
+
+    /**
+     * Слоты из selected в порядке поля
+     */
+    synchronized int[] sort(BitSet selected, SortKey key, boolean descending) {
+        GameColumns columns = store.columns();
+        int count = selected.cardinality();
+        int[] result;
+        if (key == SortKey.CATALOG) {
+            // Слоты идут в порядке добавления, уплотнение его сохраняет
+            result = selected.stream().toArray();
+        } else if ((long) count * DIRECT_SORT_RATIO < columns.size()) {
+            result = selected.stream().toArray();
+            sortSlots(key, columns, result);
+        } else {
+            int[] order = order(key);
+            int size = sizes[key.ordinal()];
+            result = new int[count];
+            int n = 0;
+            for (int i = 0; i < size && n < count; i++) {
+                CatalogExecutors.checkCancelled(i);
+                if (selected.get(order[i])) {
+                    result[n++] = order[i];
+                }
+            }
+        }
+        if (descending) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                int slot = result[i];
+                result[i] = result[j];
+                result[j] = slot;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Строки таблицы из selected в порядке поля без копирования результата:
+     * окно строк читается прямо из перестановки
+     */
+    synchronized RowSource rows(BitSet selected, SortKey key, boolean descending) {
+        if (key == SortKey.CATALOG) {
+            return RowSource.of(selected, descending);
+        }
+        if ((long) selected.cardinality() * DIRECT_SORT_RATIO < store.columns().size()) {
+            return RowSource.of(sort(selected, key, descending));
+        }
+        return new PermutationRows(selected, key, descending);
+    }
+
+    /**
+     * Строки offset .. offset + count - 1 из total слотов selected в порядке поля.
+     * Вызывается под блокировкой чтения каталога, поэтому перестановки не
+     * меняются: монитор индекса нужен только, чтобы взять (или построить)
+     * перестановку, а проход идёт без него и только до конца страницы.
+     */
+    int[] page(BitSet selected, int total, SortKey key, boolean descending, int offset, int count) {
+        count = Math.max(0, Math.min(count, total - offset));
+        int[] page = new int[count];
+        if (count == 0) {
+            return page;
+        }
+        if (key == SortKey.CATALOG) {
+            int slot = descending ? selected.previousSetBit(selected.length() - 1) : selected.nextSetBit(0);
+            for (int row = 0; row < offset + count; row++) {
+                CatalogExecutors.checkCancelled(row);
+                if (row >= offset) {
+                    page[row - offset] = slot;
+                }
+                slot = descending ? selected.previousSetBit(slot - 1) : selected.nextSetBit(slot + 1);
+            }
+            return page;
+        }
+        if ((long) total * DIRECT_SORT_RATIO < store.columns().size()) {
+            return Arrays.copyOfRange(sort(selected, key, descending), offset, offset + count);
+        }
+        int[] order;
+        int size;
+        synchronized (this) {
+            order = order(key);
+            size = sizes[key.ordinal()];
+        }
+        // По убыванию перестановка проходится с конца
+        int step = descending ? -1 : 1;
+        int skip = offset;
+        int n = 0;
+        for (int i = descending ? size - 1 : 0, visited = 0; n < count; i += step) {
+            CatalogExecutors.checkCancelled(++visited);
+            if (selected.get(order[i])) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    page[n++] = order[i];
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Окно строк над перестановкой поля - неизменяемый снимок, который
+     * строится в потоке запроса: ссылка на перестановку, число отобранных строк
+     * и позиция в перестановке каждой CHECKPOINT_STEP-й из них. Изменения
+     * каталога не трогают перестановку снимка (она помечена как общая),
+     * поэтому поток событий читает окно без блокировки; новые строки
+     * приносит следующий запрос. После сброса индекса окно пусто.
+     */
+    private final class PermutationRows implements RowSource {
+        private final BitSet selected;
+        private final boolean descending;
+        private final int epoch;
+        private final int[] order;
+        private final int size;
+        private final int[] checkpoints;
+
+        // Вызывается под блокировкой индекса
+        PermutationRows(BitSet selected, SortKey key, boolean descending) {
+            this.selected = selected;
+            this.descending = descending;
+            this.epoch = resets;
+            this.order = order(key);
+            shared[key.ordinal()] = true;
+            int length = sizes[key.ordinal()];
+            IntList positions = new IntList();
+            int row = 0;
+            for (int i = 0; i < length; i++) {
+                CatalogExecutors.checkCancelled(i);
+                if (selected.get(order[i])) {
+                    if (row % CHECKPOINT_STEP == 0) {
+                        positions.add(i);
+                    }
+                    row++;
+                }
+            }
+            this.size = row;
+            this.checkpoints = positions.toArray();
+        }
+
+        @Override
+        public int size() {
+            return epoch == resets ? size : 0;
+        }
+
+        @Override
+        public void fetch(int from, int[] out, int count) {
+            count = Math.max(0, Math.min(count, size() - from));
+            if (count == 0) {
+                return;
+            }
+            // По убыванию строки читаются с конца перестановки
+            int first = descending ? size - from - count : from;
+            int position = checkpoints[first / CHECKPOINT_STEP];
+            for (int skip = first % CHECKPOINT_STEP; skip > 0; position++) {
+                if (selected.get(order[position])) {
+                    skip--;
+                }
+            }
+            for (int n = 0; n < count; position++) {
+                if (selected.get(order[position])) {
+                    out[descending ? count - 1 - n : n] = order[position];
+                    n++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Построение перестановки заранее, чтобы первый щелчок по заголовку не ждал
+     */
+    synchronized void prepare(SortKey key) {
+        if (key != SortKey.CATALOG) {
+            order(key);
+        }
+    }
+
+    /**
+     * Перестановка поля. Построение не прерывается отменой запроса:
+     * готовая перестановка понадобится следующему запросу.
+     */
+    private int[] order(SortKey key) {
+        int[] order = orders[key.ordinal()];
+        if (order == null) {
+            GameColumns columns = store.columns();
+            order = columns.liveSlots().stream().toArray();
+            sortSlots(key, columns, order);
+            orders[key.ordinal()] = order;
+            sizes[key.ordinal()] = order.length;
+        }
+        return order;
+    }
+
+    /**
+     * Сортировка слотов по полю. Числовые поля и ранги словарей упаковываются
+     * вместе со слотом в long и сортируются без компаратора; названия -
+     * слиянием по ключу сопоставления.
+     */
+    private void sortSlots(SortKey key, GameColumns columns, int[] slots) {
+        if (key == SortKey.TITLE) {
+            // Первые четыре символа ключа упакованы в long: часть сравнений
+            // решается по массиву чисел, не обращаясь к разбросанным по памяти строкам
+            long[] prefixes = new long[columns.length()];
+            for (int slot : slots) {
+                prefixes[slot] = prefix(columns.foldedTitle(slot));
+            }
+            mergeSort(slots, new int[slots.length], 0, slots.length, (a, b) -> {
+                int c = Long.compareUnsigned(prefixes[a], prefixes[b]);
+                return c != 0 ? c : compare(SortKey.TITLE, columns, a, b);
+            });
+            return;
+        }
+        int[] ranks = key == SortKey.DEVELOPER ? developerRanks(columns)
+                : key == SortKey.PLATFORM ? platformRanks(columns) : null;
+        long[] packed = new long[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            packed[i] = ((long) value(key, columns, ranks, slots[i]) << 32) | slots[i];
+        }
+        Arrays.sort(packed);
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = (int) packed[i];
+        }
+    }
+
+    private static int value(SortKey key, GameColumns columns, int[] ranks, int slot) {
+        return switch (key) {
+            case GENRE -> columns.genreOrdinal(slot);
+            case YEAR -> columns.year(slot);
+            case RATING -> columns.ratingTenths(slot);
+            case DEVELOPER -> ranks[columns.developerCode(slot)];
+            case PLATFORM -> ranks[columns.platformCode(slot)];
+            default -> slot;
+        };
+    }
+
+    /**
+     * Позиция слота в перестановке или -(точка вставки) - 1
+     */
+    private int search(SortKey key, GameColumns columns, int[] order, int size, int slot) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(key, columns, order[mid], slot);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Полный порядок: значение поля, затем слот
+     */
+    private int compare(SortKey key, GameColumns columns, int a, int b) {
+        int result = switch (key) {
+            case TITLE -> {
+                int c = compareCollated(columns.foldedTitle(a), columns.foldedTitle(b));
+                yield c != 0 ? c : columns.title(a).compareTo(columns.title(b));
+            }
+            case DEVELOPER -> {
+                int[] ranks = developerRanks(columns);
+                yield Integer.compare(ranks[columns.developerCode(a)], ranks[columns.developerCode(b)]);
+            }
+            case PLATFORM -> {
+                int[] ranks = platformRanks(columns);
+                yield Integer.compare(ranks[columns.platformCode(a)], ranks[columns.platformCode(b)]);
+            }
+            default -> Integer.compare(value(key, columns, null, a), value(key, columns, null, b));
+        };
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    private int[] developerRanks(GameColumns columns) {
+        if (developerRanks.length != columns.developerDictionary().size()) {
+            developerRanks = ranks(columns.developerDictionary());
+        }
+        return developerRanks;
+    }
+
+    private int[] platformRanks(GameColumns columns) {
+        if (platformRanks.length != columns.platformDictionary().size()) {
+            platformRanks = ranks(columns.platformDictionary());
+        }
+        return platformRanks;
+    }
+
+    /**
+     * Ранги кодов словаря; пересчитываются, когда в словаре появилось новое значение
+     */
+    private static int[] ranks(StringDictionary dictionary) {
+        int size = dictionary.size();
+        String[] folded = new String[size];
+        int[] codes = new int[size];
+        for (int code = 0; code < size; code++) {
+            folded[code] = dictionary.decode(code).toLowerCase();
+            codes[code] = code;
+        }
+        mergeSort(codes, new int[size], 0, size, (a, b) -> {
+            int c = compareCollated(folded[a], folded[b]);
+            return c != 0 ? c : dictionary.decode(a).compareTo(dictionary.decode(b));
+        });
+        int[] ranks = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            ranks[codes[rank]] = rank;
+        }
+        return ranks;
+    }
+
+    /**
+     * Первые четыре символа ключа сопоставления по 16 бит; короткая строка
+     * дополняется нулями и поэтому идёт раньше своих продолжений
+     */
+    private static long prefix(String folded) {
+        long prefix = 0;
+        for (int i = 0; i < 4; i++) {
+            char c = i < folded.length() ? folded.charAt(i) : 0;
+            prefix = (prefix << 16) | (c == 'ё' ? 'е' : c);
+        }
+        return prefix;
+    }
+
+    /**
+     * Сравнение строк в нижнем регистре; «ё» стоит вместе с «е»
+     */
+    static int compareCollated(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        for (int i = 0; i < n; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                x = x == 'ё' ? 'е' : x;
+                y = y == 'ё' ? 'е' : y;
+                if (x != y) {
+                    return x - y;
+                }
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Устойчивая сортировка слиянием массива int с компаратором
+     */
+    private static void mergeSort(int[] values, int[] buffer, int from, int to, IntBinaryOperator comparator) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int value = values[i];
+                int j = i - 1;
+                while (j >= from && comparator.applyAsInt(values[j], value) > 0) {
+                    values[j + 1] = values[j];
+                    j--;
+                }
+                values[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(values, buffer, from, mid, comparator);
+        mergeSort(values, buffer, mid, to, comparator);
+        if (comparator.applyAsInt(values[mid - 1], values[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, buffer, from, mid - from);
+        int i = from;
+        int j = mid;
+        int k = from;
+        while (i < mid && j < to) {
+            values[k++] = comparator.applyAsInt(buffer[i], values[j]) <= 0 ? buffer[i++] : values[j++];
+        }
+        while (i < mid) {
+            values[k++] = buffer[i++];
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.gamecatalog;
+
+/**
+ * Поле, по которому упорядочиваются строки таблицы.
+ * CATALOG - порядок добавления игр в каталог.
+ */
+public enum SortKey {
+    CATALOG, TITLE, GENRE, YEAR, RATING, DEVELOPER, PLATFORM
+}
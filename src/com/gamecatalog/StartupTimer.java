@@ -0,0 +1,58 @@
+package com.gamecatalog;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Замер этапов запуска приложения до первого кадра окна.
+ * Время отсчитывается от запуска JVM (если ОС его сообщает) и от входа в main.
+ */
+final class StartupTimer {
+    private static final long ORIGIN = System.nanoTime();
+    private static final List<String> phases = new ArrayList<>();
+    private static final List<Long> times = new ArrayList<>();
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Начало отсчёта; вызывается первой строкой main
+     */
+    static void begin() {
+        // Отсчёт задаёт инициализация класса (ORIGIN)
+    }
+
+    /**
+     * Отметка о завершении этапа
+     */
+    static synchronized void mark(String phase) {
+        phases.add(phase);
+        times.add(System.nanoTime());
+    }
+
+    /**
+     * Отчёт одной строкой: момент завершения каждого этапа от входа в main.
+     * Этапы идут и параллельно (загрузка каталога в фоне), поэтому
+     * показываются моменты, а не длительности.
+     */
+    static synchronized String report() {
+        StringBuilder text = new StringBuilder("Запуск, мс от входа в main:");
+        long beforeMain = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis() - elapsed(System.nanoTime()))
+                .orElse(-1L);
+        if (beforeMain >= 0) {
+            text.append(" JVM до main ").append(beforeMain).append(';');
+        }
+        for (int i = 0; i < phases.size(); i++) {
+            text.append(' ').append(phases.get(i)).append(' ').append(elapsed(times.get(i)));
+            text.append(i + 1 < phases.size() ? ";" : "");
+        }
+        return text.toString();
+    }
+
+    private static long elapsed(long nanos) {
+        return (nanos - ORIGIN) / 1_000_000;
+    }
+}
@@ -0,0 +1,44 @@
+package com.gamecatalog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Словарь строк: каждому различному значению назначается целочисленный код.
+ * Значения берутся из общего пула StringPool, поэтому словари разных
+ * каталогов и копий хранят одно значение в одном экземпляре.
+ */
+public final class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int count;
+
+    /**
+     * Код значения; новое значение получает следующий свободный код
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        value = StringPool.SHARED.intern(value);
+        values[count] = value;
+        codes.put(value, count);
+        return count++;
+    }
+
+    /**
+     * Код значения или -1, если значения нет в словаре
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) { return values[code]; }
+    public int size() { return count; }
+}
@@ -0,0 +1,127 @@
+package com.gamecatalog;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Общий ограниченный пул повторяющихся строк (разработчики, платформы).
+ * Разбор файла спрашивает пул по символам поля и получает готовый экземпляр,
+ * не создавая новую строку; все каталоги, части параллельной загрузки и копии
+ * колонок держат одно и то же значение в одном экземпляре.
+ * Пул без блокировок: значения только добавляются, поэтому чтение безопасно
+ * из любого потока. Заполненный пул перестаёт принимать новые значения
+ * и просто возвращает новые строки.
+ */
+final class StringPool {
+    /**
+     * Пул, через который проходят все пути загрузки и правки каталога
+     */
+    static final StringPool SHARED = new StringPool(1 << 12, 64);
+
+    private final AtomicReferenceArray<String> table;
+    private final int maxEntries;
+    private final int maxLength;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * maxEntries - наибольшее число значений, maxLength - наибольшая длина
+     * значения в пуле (длинные строки редко повторяются)
+     */
+    StringPool(int maxEntries, int maxLength) {
+        this.table = new AtomicReferenceArray<>(Integer.highestOneBit(Math.max(8, maxEntries)) << 1);
+        this.maxEntries = maxEntries;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Строка из символов chars[from, to); новая строка создаётся,
+     * только если такого значения ещё нет в пуле
+     */
+    String intern(char[] chars, int from, int to) {
+        int length = to - from;
+        if (length > maxLength) {
+            return new String(chars, from, length);
+        }
+        // Тот же хеш, что у String.hashCode(), который строка хранит у себя
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = table.length() - 1;
+        for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+            String value = table.get(i);
+            if (value == null) {
+                String created = new String(chars, from, length);
+                String stored = insert(i, created);
+                if (stored == null) {
+                    return created;
+                }
+                if (stored.hashCode() == hash && equals(stored, chars, from, to)) {
+                    return stored;
+                }
+                // Ячейку заняло другое значение - продолжаем поиск дальше
+                continue;
+            }
+            if (value.hashCode() == hash && equals(value, chars, from, to)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Экземпляр из пула, равный value (или сам value, если пул его принял либо заполнен)
+     */
+    String intern(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        int hash = value.hashCode();
+        int mask = table.length() - 1;
+        for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+            String stored = table.get(i);
+            if (stored == null) {
+                stored = insert(i, value);
+                if (stored == null) {
+                    return value;
+                }
+            }
+            if (stored.hashCode() == hash && stored.equals(value)) {
+                return stored;
+            }
+        }
+    }
+
+    int size() { return size.get(); }
+
+    /**
+     * Занятие пустой ячейки: null - значение записано или пул заполнен,
+     * иначе значение, которое другой поток записал в эту ячейку раньше
+     */
+    private String insert(int index, String value) {
+        if (size.get() >= maxEntries) {
+            return null;
+        }
+        if (table.compareAndSet(index, null, value)) {
+            size.incrementAndGet();
+            return null;
+        }
+        return table.get(index);
+    }
+
+    private static boolean equals(String value, char[] chars, int from, int to) {
+        if (value.length() != to - from) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i - from) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+}
@@ -0,0 +1,138 @@
+package com.gamecatalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Поиск подстроки по названию, разработчику и платформе через триграммный индекс.
+ * Названия индексируются по слотам; разработчики и платформы - по кодам словаря,
+ * которых в каталоге всего несколько сотен, а у каждого кода есть список
+ * его слотов: поиск раскрывает найденные коды в слоты без просмотра строк.
+ */
+final class TextIndex implements CatalogListener {
+    private final CatalogStore store;
+    private final NGramIndex titles = new NGramIndex();
+    private final NGramIndex developers = new NGramIndex();
+    private final NGramIndex platforms = new NGramIndex();
+    // Значения словарей в нижнем регистре по кодам; их размер - сколько кодов проиндексировано
+    private final List<String> foldedDevelopers = new ArrayList<>();
+    private final List<String> foldedPlatforms = new ArrayList<>();
+    // Слоты каждого кода словаря по возрастанию
+    private final List<IntList> developerSlots = new ArrayList<>();
+    private final List<IntList> platformSlots = new ArrayList<>();
+
+    TextIndex(CatalogStore store) {
+        this.store = store;
+        reset();
+    }
+
+    @Override
+    public void rowAdded(int slot) {
+        GameColumns columns = store.columns();
+        titles.add(slot, columns.foldedTitle(slot));
+
+        // Словари только растут: новые значения индексируем один раз
+        indexDictionary(columns.developerDictionary(), developers, foldedDevelopers, developerSlots);
+        indexDictionary(columns.platformDictionary(), platforms, foldedPlatforms, platformSlots);
+        developerSlots.get(columns.developerCode(slot)).addSorted(slot);
+        platformSlots.get(columns.platformCode(slot)).addSorted(slot);
+    }
+
+    private static void indexDictionary(StringDictionary dictionary, NGramIndex index, List<String> folded,
+                                        List<IntList> slots) {
+        for (int code = folded.size(); code < dictionary.size(); code++) {
+            String value = dictionary.decode(code).toLowerCase();
+            folded.add(value);
+            index.add(code, value);
+            slots.add(new IntList());
+        }
+    }
+
+    @Override
+    public void rowRemoved(int slot) {
+        GameColumns columns = store.columns();
+        titles.remove(slot, columns.foldedTitle(slot));
+        developerSlots.get(columns.developerCode(slot)).removeSorted(slot);
+        platformSlots.get(columns.platformCode(slot)).removeSorted(slot);
+    }
+
+    @Override
+    public void reset() {
+        titles.clear();
+        developers.clear();
+        platforms.clear();
+        foldedDevelopers.clear();
+        foldedPlatforms.clear();
+        developerSlots.clear();
+        platformSlots.clear();
+        GameColumns columns = store.columns();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            rowAdded(slot);
+        }
+    }
+
+    /**
+     * Оставляет в candidates только слоты, где поле содержит подстроку (без учёта регистра)
+     */
+    BitSet search(SearchField field, String loweredNeedle, BitSet candidates) {
+        GameColumns columns = store.columns();
+        BitSet result = new BitSet();
+        if (field == SearchField.TITLE) {
+            int[] docs = titles.candidates(loweredNeedle);
+            int n = 0;
+            if (docs == null) {
+                for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                    CatalogExecutors.checkCancelled(++n);
+                    if (columns.foldedTitle(slot).contains(loweredNeedle)) {
+                        result.set(slot);
+                    }
+                }
+            } else {
+                for (int slot : docs) {
+                    CatalogExecutors.checkCancelled(++n);
+                    if (candidates.get(slot) && columns.foldedTitle(slot).contains(loweredNeedle)) {
+                        result.set(slot);
+                    }
+                }
+            }
+            return result;
+        }
+
+        // Строки не просматриваются: берутся только слоты подходящих кодов
+        boolean developer = field == SearchField.DEVELOPER;
+        boolean[] codes = developer
+                ? matchingCodes(developers, foldedDevelopers, loweredNeedle)
+                : matchingCodes(platforms, foldedPlatforms, loweredNeedle);
+        List<IntList> slotsByCode = developer ? developerSlots : platformSlots;
+        for (int code = 0; code < codes.length; code++) {
+            if (codes[code]) {
+                IntList slots = slotsByCode.get(code);
+                for (int i = 0; i < slots.size(); i++) {
+                    CatalogExecutors.checkCancelled(i);
+                    result.set(slots.get(i));
+                }
+            }
+        }
+        result.and(candidates);
+        return result;
+    }
+
+    /**
+     * Коды словаря, значения которых содержат подстроку
+     */
+    private static boolean[] matchingCodes(NGramIndex index, List<String> folded, String loweredNeedle) {
+        boolean[] matches = new boolean[folded.size()];
+        int[] docs = index.candidates(loweredNeedle);
+        if (docs == null) {
+            for (int code = 0; code < matches.length; code++) {
+                matches[code] = folded.get(code).contains(loweredNeedle);
+            }
+        } else {
+            for (int code : docs) {
+                matches[code] = folded.get(code).contains(loweredNeedle);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,53 @@
+package com.gamecatalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Разбор параметров командной строки: числа вне допустимых пределов
+ * отклоняются, а не усекаются
+ */
+class CatalogCliTest {
+
+    @Test
+    void yearOutsideRangeIsUsageError() {
+        assertUsageError("--year: ожидается число от 1 до 9999", "--generate", "10", "--year", "4294969312");
+        assertUsageError("--year", "--generate", "10", "--year", "-2020");
+        Result valid = run("--generate", "0", "--year", "2020");
+        assertEquals(CatalogCli.OK, valid.code(), valid.error());
+        assertEquals("0", valid.output().trim());
+    }
+
+    @Test
+    void servePortOutsideRangeIsUsageError() {
+        assertUsageError("--serve: ожидается число от 0 до 65535", "--generate", "10", "--serve", "-5");
+        assertUsageError("--serve", "--generate", "10", "--serve", "65536");
+    }
+
+    @Test
+    void negativeGenerateIsUsageError() {
+        assertUsageError("--generate: ожидается число от 0", "--generate", "-3");
+    }
+
+    private record Result(int code, String output, String error) {
+    }
+
+    private static void assertUsageError(String message, String... args) {
+        Result result = run(args);
+        assertEquals(CatalogCli.USAGE_ERROR, result.code(), result.error());
+        assertTrue(result.error().contains(message), result.error());
+    }
+
+    private static Result run(String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int code = CatalogCli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+        return new Result(code, out.toString(StandardCharsets.UTF_8), err.toString(StandardCharsets.UTF_8));
+    }
+}
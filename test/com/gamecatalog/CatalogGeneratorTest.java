@@ -0,0 +1,73 @@
+package com.gamecatalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Генератор с одним зерном выдаёт один и тот же каталог, в том числе при
+ * потоковой записи из командной строки
+ */
+class CatalogGeneratorTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void sameSeedWritesSameCatalog() throws IOException {
+        for (CatalogFormat format : new CatalogFormat[]{CatalogFormat.CSV, CatalogFormat.TXT, CatalogFormat.JSON}) {
+            String first = write(42, 2_000, format);
+            assertEquals(first, write(42, 2_000, format), format.toString());
+            assertNotEquals(first, write(43, 2_000, format), format.toString());
+        }
+    }
+
+    @Test
+    void writtenCsvMatchesGeneratedColumns() throws IOException {
+        GameColumns expected = new CatalogGenerator(7).columns(1_000);
+        GameColumns loaded = new GameColumns();
+        ImportReport report = new ImportReport();
+        CatalogFiles.readCsv(new StringReader(write(7, 1_000, CatalogFormat.CSV)), loaded, report);
+        assertEquals(0, report.errors(), report.summary(5));
+        assertEquals(expected.size(), loaded.size());
+        for (int slot = 0; slot < expected.size(); slot++) {
+            assertEquals(expected.title(slot), loaded.title(slot));
+            assertEquals(expected.genre(slot), loaded.genre(slot));
+            assertEquals(expected.year(slot), loaded.year(slot));
+            assertEquals(expected.ratingTenths(slot), loaded.ratingTenths(slot));
+            assertEquals(expected.developer(slot), loaded.developer(slot));
+            assertEquals(expected.platform(slot), loaded.platform(slot));
+        }
+    }
+
+    @Test
+    void cliStreamsGeneratedCatalogToFile() throws IOException {
+        Path first = dir.resolve("first.csv");
+        Path second = dir.resolve("second.csv");
+        assertEquals(CatalogCli.OK, cli("--generate", "3000", "--seed", "5", "--no-header", "--out", first.toString()));
+        assertEquals(CatalogCli.OK, cli("--generate", "3000", "--seed", "5", "--no-header", "--out", second.toString()));
+        String text = Files.readString(first, StandardCharsets.UTF_8);
+        assertEquals(text, Files.readString(second, StandardCharsets.UTF_8));
+        assertEquals(write(5, 3_000, CatalogFormat.CSV), text);
+    }
+
+    private static String write(long seed, long count, CatalogFormat format) throws IOException {
+        StringWriter out = new StringWriter();
+        new CatalogGenerator(seed).write(count, out, format, false);
+        return out.toString();
+    }
+
+    private static int cli(String... args) {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        return CatalogCli.run(args, out, out);
+    }
+}
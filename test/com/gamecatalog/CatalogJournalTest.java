@@ -0,0 +1,205 @@
+package com.gamecatalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Восстановление каталога из журнала: полный повтор, оборванный хвост,
+ * повреждённые записи посреди сегмента
+ */
+class CatalogJournalTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAddsEditsAndDeletes() throws IOException {
+        CatalogStore store = new CatalogStore();
+        CatalogJournal journal = CatalogJournal.open(store, dir);
+        Game a = game("A");
+        Game b = game("B");
+        store.add(a);
+        store.add(b);
+        store.add(game("C"));
+        b.setTitle("B2");
+        assertTrue(store.update(b));
+        assertTrue(store.remove(a.getId()));
+        journal.close();
+
+        CatalogStore restored = new CatalogStore();
+        CatalogJournal reopened = CatalogJournal.open(restored, dir);
+        assertTrue(reopened.recovered());
+        assertEquals(5, reopened.replayed());
+        assertEquals(List.of("B2", "C"), titles(restored));
+        assertEquals(b.getId(), restored.games().stream()
+                .filter(game -> game.getTitle().equals("B2")).findFirst().orElseThrow().getId());
+        reopened.close();
+    }
+
+    @Test
+    void tornTailIsDroppedAndLaterWritesSurvive() throws IOException {
+        CatalogStore store = new CatalogStore();
+        CatalogJournal journal = CatalogJournal.open(store, dir);
+        store.add(game("A"));
+        store.add(game("B"));
+        journal.close();
+        truncate(segment(1), 3);
+
+        CatalogStore restored = new CatalogStore();
+        CatalogJournal reopened = CatalogJournal.open(restored, dir);
+        assertEquals(List.of("A"), titles(restored));
+        restored.add(game("C"));
+        reopened.close();
+
+        assertEquals(List.of("A", "C"), reopen());
+    }
+
+    @Test
+    void corruptRecordStopsReplayOfLaterSegments() throws IOException {
+        CatalogStore store = new CatalogStore();
+        CatalogJournal journal = CatalogJournal.open(store, dir);
+        Game a = game("A");
+        store.add(a);
+        store.add(game("B"));
+        store.remove(a.getId());
+        journal.close();
+
+        // Второй сеанс пишет следующий сегмент
+        CatalogStore second = new CatalogStore();
+        CatalogJournal secondJournal = CatalogJournal.open(second, dir);
+        second.add(game("C"));
+        secondJournal.close();
+        assertEquals(List.of("B", "C"), reopen());
+
+        // Удаление A испорчено: C из следующего сегмента без него применять нельзя
+        corruptPayload(segment(1), 2);
+        CatalogStore restored = new CatalogStore();
+        CatalogJournal reopened = CatalogJournal.open(restored, dir);
+        assertEquals(2, reopened.replayed());
+        assertEquals(List.of("A", "B"), titles(restored));
+        restored.add(game("D"));
+        reopened.close();
+
+        // Новый снимок отделяет записи после обрыва от повреждённого сегмента
+        assertEquals(List.of("A", "B", "D"), reopen());
+    }
+
+    @Test
+    void garbageLengthStopsReplayWithoutAllocating() throws IOException {
+        CatalogStore store = new CatalogStore();
+        CatalogJournal journal = CatalogJournal.open(store, dir);
+        store.add(game("A"));
+        store.add(game("B"));
+        store.add(game("C"));
+        journal.close();
+
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE - 8), recordOffset(channel, 1));
+        }
+        assertEquals(List.of("A"), reopen());
+    }
+
+    @Test
+    void unknownSegmentHeaderStopsReplay() throws IOException {
+        CatalogStore store = new CatalogStore();
+        CatalogJournal journal = CatalogJournal.open(store, dir);
+        store.add(game("A"));
+        journal.close();
+        CatalogStore second = new CatalogStore();
+        CatalogJournal secondJournal = CatalogJournal.open(second, dir);
+        second.add(game("B"));
+        secondJournal.close();
+
+        Files.write(segment(1), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertEquals(List.of(), reopen());
+    }
+
+    @Test
+    void failedBaselineSnapshotDisablesJournal() throws Exception {
+        CatalogStore store = new CatalogStore();
+        CatalogJournal journal = CatalogJournal.open(store, dir);
+        store.add(game("A"));
+        journal.sync();
+        BlockingQueue<IOException> failures = new LinkedBlockingQueue<>();
+        journal.onFailure(failures::add);
+
+        // Снимок замены каталога (сегмент 2) не записать: временный файл занят каталогом
+        Files.createDirectories(dir.resolve("snapshot-2.gcat.tmp").resolve("busy"));
+        GameColumns loaded = new GameColumns();
+        loaded.appendNew("B", Game.Genre.RPG, 2020, 85, "Studio", "PC");
+        store.replaceAll(loaded);
+
+        IOException failure = failures.poll(20, TimeUnit.SECONDS);
+        assertNotNull(failure, "об ошибке снимка не сообщено");
+        assertSame(failure, assertThrows(IOException.class, journal::sync));
+        assertSame(failure, assertThrows(IOException.class, journal::close));
+    }
+
+    private List<String> reopen() throws IOException {
+        CatalogStore restored = new CatalogStore();
+        CatalogJournal.open(restored, dir).close();
+        return titles(restored);
+    }
+
+    private static Game game(String title) {
+        return new Game(title, Game.Genre.RPG, 2020, 8.5, "Studio", "PC");
+    }
+
+    private static List<String> titles(CatalogStore store) {
+        TreeSet<String> titles = new TreeSet<>();
+        store.forEach(game -> titles.add(game.getTitle()));
+        return List.copyOf(titles);
+    }
+
+    private Path segment(long number) {
+        Path file = dir.resolve("journal-" + number + ".log");
+        assertTrue(Files.exists(file), file.toString());
+        return file;
+    }
+
+    private static void truncate(Path file, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - bytes);
+        }
+    }
+
+    /**
+     * Порча одного байта данных записи index (с нуля): контрольная сумма не сойдётся
+     */
+    private static void corruptPayload(Path file, int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = recordOffset(channel, index) + 8 + 5;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) (value.get(0) ^ 0x5A)).rewind();
+            channel.write(value, position);
+        }
+    }
+
+    /**
+     * Смещение записи index: заголовок сегмента 8 байт, у записи 8 байт длины и CRC
+     */
+    private static long recordOffset(FileChannel channel, int index) throws IOException {
+        long position = 8;
+        ByteBuffer length = ByteBuffer.allocate(4);
+        for (int i = 0; i < index; i++) {
+            length.clear();
+            channel.read(length, position);
+            position += 8 + length.getInt(0);
+        }
+        return position;
+    }
+}
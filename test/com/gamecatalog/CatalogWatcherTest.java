@@ -0,0 +1,180 @@
+package com.gamecatalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Перечитывание изменённого файла: в хранилище попадает только разница,
+ * а записи разбираются по тем же правилам, что при загрузке
+ */
+class CatalogWatcherTest {
+    @TempDir
+    Path dir;
+
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+    private final AtomicBoolean failNextApply = new AtomicBoolean();
+    private final AtomicBoolean appliedOnApplier = new AtomicBoolean();
+    private final ThreadLocal<Boolean> onApplier = ThreadLocal.withInitial(() -> false);
+    private final CatalogStore store = new CatalogStore() {
+        @Override
+        public Changes apply(List<Game> updates, List<Game> additions, List<String> removals) {
+            if (onApplier.get()) {
+                appliedOnApplier.set(true);
+            }
+            if (failNextApply.getAndSet(false)) {
+                throw new IllegalStateException("каталог недоступен");
+            }
+            return super.apply(updates, additions, removals);
+        }
+    };
+    private CatalogWatcher watcher;
+
+    @AfterEach
+    void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    @Test
+    void gameTitledTitleSurvivesReload() throws Exception {
+        Path file = write("Каталог игр",
+                "Title,Genre,Year,Rating,Developer,Platform",
+                "Title,RPG,2000,5.0,Dev,PC",
+                "Other,RPG,2001,6.0,Dev,PC");
+        watch(file);
+        assertEquals(List.of("Other", "Title"), titles());
+
+        append(file, "New,Action,2020,7.5,Dev,PS5");
+        CatalogWatcher.Reload reload = nextReload();
+        assertEquals(1, reload.inserted());
+        assertEquals(0, reload.deleted());
+        assertEquals(List.of("New", "Other", "Title"), titles());
+
+        // Правка строки игры "Title" - изменение той же игры, а не удаление
+        Files.writeString(file, Files.readString(file, StandardCharsets.UTF_8)
+                .replace("Title,RPG,2000,5.0", "Title,RPG,2000,9.5"), StandardCharsets.UTF_8);
+        reload = nextReload();
+        assertEquals(1, reload.updated());
+        assertEquals(0, reload.deleted());
+        assertEquals(95, store.columns().ratingTenths(slotOf("Title")));
+        // Пакет применяется в потоке слежения, в applier уходит только итог
+        assertFalse(appliedOnApplier.get());
+    }
+
+    @Test
+    void oneFieldLineAfterDataIsReported() throws Exception {
+        Path file = write("Title,Genre,Year,Rating,Developer,Platform", "A,RPG,2000,5.0,Dev,PC");
+        watch(file);
+
+        append(file, "broken");
+        CatalogWatcher.Reload reload = nextReload();
+        assertEquals(0, reload.inserted());
+        assertEquals(1, reload.skipped());
+        assertEquals(List.of("A"), titles());
+    }
+
+    @Test
+    void failedApplyIsReportedAndRetried() throws Exception {
+        Path file = write("Title,Genre,Year,Rating,Developer,Platform", "A,RPG,2000,5.0,Dev,PC");
+        watch(file);
+
+        failNextApply.set(true);
+        append(file, "B,RPG,2001,6.0,Dev,PC");
+        Object event = events.poll(20, TimeUnit.SECONDS);
+        IOException error = assertInstanceOf(IOException.class, event);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(List.of("A"), titles());
+
+        // Неприменённая разница не потеряна: следующее перечитывание приносит обе игры
+        append(file, "C,RPG,2002,7.0,Dev,PC");
+        CatalogWatcher.Reload reload = nextReload();
+        assertEquals(2, reload.inserted());
+        assertEquals(List.of("A", "B", "C"), titles());
+    }
+
+    private Path write(String... lines) throws IOException {
+        Path file = dir.resolve("catalog.csv");
+        Files.writeString(file, String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static void append(Path file, String line) throws IOException {
+        Files.writeString(file, Files.readString(file, StandardCharsets.UTF_8) + line + "\n", StandardCharsets.UTF_8);
+    }
+
+    private void watch(Path file) throws Exception {
+        ImportReport report = new ImportReport();
+        store.replaceAll(CatalogFiles.load(file, report));
+        Executor applier = command -> {
+            onApplier.set(true);
+            try {
+                command.run();
+            } finally {
+                onApplier.set(false);
+            }
+        };
+        watcher = CatalogWatcher.start(store, file, applier, new CatalogWatcher.Listener() {
+            @Override
+            public void reloaded(CatalogWatcher.Reload reload) {
+                events.add(reload);
+            }
+
+            @Override
+            public void failed(IOException error) {
+                events.add(error);
+            }
+        });
+        // Сопоставление с хранилищем должно увидеть исходный файл
+        watcher.awaitPending();
+    }
+
+    /**
+     * Следующее перечитывание с изменениями; запись файла может дать несколько
+     * событий, и лишние перечитывания ничего не меняют
+     */
+    private CatalogWatcher.Reload nextReload() throws InterruptedException {
+        while (true) {
+            Object event = events.poll(20, TimeUnit.SECONDS);
+            assertNotNull(event, "файл не перечитан");
+            if (event instanceof Throwable error) {
+                fail(error);
+            }
+            CatalogWatcher.Reload reload = (CatalogWatcher.Reload) event;
+            if (!reload.isEmpty() || reload.skipped() > 0) {
+                return reload;
+            }
+        }
+    }
+
+    private int slotOf(String title) {
+        GameColumns columns = store.columns();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            if (columns.title(slot).equals(title)) {
+                return slot;
+            }
+        }
+        return fail("нет игры " + title);
+    }
+
+    private List<String> titles() {
+        TreeSet<String> titles = new TreeSet<>();
+        store.forEach(game -> titles.add(game.getTitle()));
+        return List.copyOf(titles);
+    }
+}
@@ -0,0 +1,164 @@
+package com.gamecatalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Разбор CSV: кавычки, переводы строк внутри полей, номера строк и ошибки формата
+ */
+class CsvReaderTest {
+
+    @Test
+    void plainFieldsAreTrimmed() throws IOException {
+        List<List<String>> records = records("  Dark Souls ,RPG, 2011 ,9.0,FromSoftware,PC\n");
+        assertEquals(List.of(List.of("Dark Souls", "RPG", "2011", "9.0", "FromSoftware", "PC")), records);
+    }
+
+    @Test
+    void quotedFieldKeepsCommasSpacesAndDoubledQuotes() throws IOException {
+        List<List<String>> records = records("\"Title, with comma\",\"  spaced  \",\"say \"\"hi\"\"\"\n");
+        assertEquals(List.of(List.of("Title, with comma", "  spaced  ", "say \"hi\"")), records);
+    }
+
+    @Test
+    void quotedFieldMaySpanLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,\"line 1\nline 2\r\nline 3\",b\nnext,x\n"));
+        assertTrue(csv.next());
+        assertEquals(3, csv.fieldCount());
+        assertEquals("line 1\nline 2\r\nline 3", csv.field(1));
+        assertEquals(1, csv.recordLine());
+        assertTrue(csv.next());
+        assertEquals("next", csv.field(0));
+        // Запись после трёхстрочного поля начинается с четвёртой строки файла
+        assertEquals(4, csv.recordLine());
+        assertFalse(csv.next());
+    }
+
+    @Test
+    void bareQuoteInsideUnquotedFieldIsLiteral() throws IOException {
+        List<List<String>> records = records("Monitor 27\" Edition,RPG\n\"quoted\nfield\",x\n");
+        assertEquals(List.of(List.of("Monitor 27\" Edition", "RPG"), List.of("quoted\nfield", "x")), records);
+    }
+
+    @Test
+    void lineEndingsLfCrLfAndCr() throws IOException {
+        List<List<String>> records = records("a,b\r\nc,d\re,f\ng,h");
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e", "f"), List.of("g", "h")), records);
+    }
+
+    @Test
+    void emptyFieldsAndBlankLines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,,\"\"\n\nb\n"));
+        assertTrue(csv.next());
+        assertEquals(3, csv.fieldCount());
+        assertEquals("", csv.field(1));
+        assertEquals("", csv.field(2));
+        assertTrue(csv.next());
+        assertTrue(csv.isBlank());
+        assertTrue(csv.next());
+        assertEquals("b", csv.field(0));
+        assertFalse(csv.isBlank());
+    }
+
+    @Test
+    void unclosedQuoteIsReported() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,\"never closed\nb,c\n"));
+        assertTrue(csv.next());
+        assertEquals("незакрытая кавычка", csv.error());
+        assertFalse(csv.next());
+    }
+
+    @Test
+    void charactersAfterClosingQuoteAreReported() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\"a\"b,c\nd,e\n"));
+        assertTrue(csv.next());
+        assertEquals("лишние символы после закрывающей кавычки", csv.error());
+        // Следующая запись читается как обычно
+        assertTrue(csv.next());
+        assertNull(csv.error());
+        assertEquals("d", csv.field(0));
+    }
+
+    @Test
+    void fieldLongerThanReadBuffer() throws IOException {
+        String longTitle = "x".repeat(200_000);
+        List<List<String>> records = records("\"" + longTitle + "\",b\n" + longTitle + ",c\n");
+        assertEquals(List.of(List.of(longTitle, "b"), List.of(longTitle, "c")), records);
+    }
+
+    @Test
+    void pooledFieldSharesInstances() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("FromSoftware\nFromSoftware\n"));
+        assertTrue(csv.next());
+        String first = csv.pooledField(0);
+        assertTrue(csv.next());
+        assertSame(first, csv.pooledField(0));
+    }
+
+    @Test
+    void catalogSkipsBannerAndHeaderAndReportsBadRows() throws IOException {
+        String text = "Каталог игр\nВсего: 2\n"
+                + "Title,Genre,Year,Rating,Developer,Platform\n"
+                + "\"Souls, Dark\",RPG,2011,9.0,FromSoftware,PC\n"
+                + "Broken,RPG,не год,9.0,X,PC\n"
+                + "Short,RPG\n"
+                + "\"Multi\nline\",ACTION,2020,7.5,Dev,\"PC/PS4\"\n";
+        GameColumns columns = new GameColumns();
+        ImportReport report = new ImportReport();
+        CatalogFiles.readCsv(new StringReader(text), columns, report);
+
+        assertEquals(2, columns.size());
+        assertEquals("Souls, Dark", columns.title(0));
+        assertEquals("Multi\nline", columns.title(1));
+        assertEquals(Game.Genre.ACTION.ordinal(), columns.genreOrdinal(1));
+        assertEquals(75, columns.ratingTenths(1));
+        assertEquals("PC/PS4", columns.platform(1));
+        assertEquals(2, report.errors());
+        assertTrue(report.messages().get(0).startsWith("строка 5:"), report.messages().get(0));
+        assertTrue(report.messages().get(1).startsWith("строка 6:"), report.messages().get(1));
+    }
+
+    @Test
+    void exportedCatalogReadsBackUnchanged() throws IOException {
+        GameColumns original = new GameColumns();
+        original.appendNew("Title, \"quoted\"", Game.Genre.RPG, 2011, 90, "Dev\nSecond line", "PC");
+        original.appendNew(" padded ", Game.Genre.ACTION_RPG, 1999, 5, "Студия", "PS4/Xbox One");
+        StringWriter out = new StringWriter();
+        CatalogExporter exporter = new CatalogExporter(out);
+        exporter.writeAll(original, CatalogFormat.CSV, true);
+        exporter.flush();
+
+        GameColumns loaded = new GameColumns();
+        ImportReport report = new ImportReport();
+        CatalogFiles.readCsv(new StringReader(out.toString()), loaded, report);
+        assertEquals(0, report.errors(), report.summary(5));
+        assertEquals(2, loaded.size());
+        for (int slot = 0; slot < 2; slot++) {
+            assertEquals(original.title(slot), loaded.title(slot));
+            assertEquals(original.developer(slot), loaded.developer(slot));
+            assertEquals(original.platform(slot), loaded.platform(slot));
+            assertEquals(original.ratingTenths(slot), loaded.ratingTenths(slot));
+        }
+    }
+
+    static List<List<String>> records(String text) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        CsvReader csv = new CsvReader(new StringReader(text));
+        while (csv.next()) {
+            assertNull(csv.error());
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < csv.fieldCount(); i++) {
+                fields.add(csv.field(i));
+            }
+            records.add(fields);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,220 @@
+package com.gamecatalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Разбор JSON: лексемы, escape-последовательности, суррогатные пары,
+ * ошибки синтаксиса с номером строки и чтение каталога
+ */
+class JsonReaderTest {
+
+    @Test
+    void tokensOfNestedDocument() throws IOException {
+        assertEquals(List.of("BEGIN_OBJECT", "NAME a", "BEGIN_ARRAY", "NUMBER 1", "NUMBER -2.5e3", "TRUE", "FALSE",
+                        "NULL", "END_ARRAY", "NAME b", "BEGIN_OBJECT", "END_OBJECT", "NAME c", "STRING x",
+                        "END_OBJECT", "END_DOCUMENT"),
+                tokens(" {\"a\": [1, -2.5e3, true, false, null], \"b\": {}, \"c\": \"x\"}\n"));
+    }
+
+    @Test
+    void escapesAreDecoded() throws IOException {
+        assertEquals(List.of("STRING q\" b\\ s/ \b\f\n\r\t é", "END_DOCUMENT"),
+                tokens("\"q\\\" b\\\\ s\\/ \\b\\f\\n\\r\\t \\u00e9\""));
+    }
+
+    @Test
+    void surrogatePairsMakeOneCodePoint() throws IOException {
+        JsonReader json = new JsonReader(new StringReader("[\"\\uD83D\\uDE00 и 😀\"]"));
+        assertEquals(JsonReader.Token.BEGIN_ARRAY, json.next());
+        assertEquals(JsonReader.Token.STRING, json.next());
+        String value = json.string();
+        assertEquals("😀 и 😀", value);
+        assertEquals(2, value.codePoints().filter(c -> c == 0x1F600).count());
+    }
+
+    @Test
+    void stringsAndEscapesAcrossReadBoundaries() throws IOException {
+        // Читатель отдаёт по одному символу: escape и \\u не должны зависеть от границ чтения
+        String prefix = "x".repeat(70_000);
+        JsonReader json = new JsonReader(trickle("[\"" + prefix + "\\u0041\\n\", \"\\uD83D\\uDE00\"]"));
+        assertEquals(JsonReader.Token.BEGIN_ARRAY, json.next());
+        assertEquals(JsonReader.Token.STRING, json.next());
+        assertEquals(prefix + "A\n", json.string());
+        assertEquals(JsonReader.Token.STRING, json.next());
+        assertEquals("😀", json.string());
+        assertEquals(JsonReader.Token.END_ARRAY, json.next());
+        assertEquals(JsonReader.Token.END_DOCUMENT, json.next());
+    }
+
+    @Test
+    void byteOrderMarkIsWhitespace() throws IOException {
+        assertEquals(List.of("BEGIN_ARRAY", "END_ARRAY", "END_DOCUMENT"), tokens("\uFEFF[]"));
+    }
+
+    @Test
+    void malformedInputReportsLine() {
+        assertError("", "пустой документ");
+        assertError("[1,\n2,\n]", "строка 3: неожиданный символ ']'");
+        assertError("{\"a\" 1}", "ожидается ':'");
+        assertError("{\"a\": 1 \"b\": 2}", "ожидается ','");
+        assertError("{1: 2}", "ожидается '\"'");
+        assertError("[tru]", "некорректное значение");
+        assertError("[\"abc", "незакрытая строка");
+        assertError("[\"\\x\"]", "неизвестная escape-последовательность");
+        assertError("[\"\\u12G4\"]", "некорректная последовательность \\u");
+        assertError("[\"\\u12", "некорректная последовательность \\u");
+        assertError("[1, 2", "ожидается ','");
+        assertError("[] []", "лишние символы после конца документа");
+        assertError("\n\n  @", "строка 3: неожиданный символ '@'");
+        assertError("[\"a\nb\"]", "строка 1: управляющий символ внутри строки");
+        assertError("[\"tab\tinside\"]", "управляющий символ внутри строки");
+    }
+
+    @Test
+    void numberTextIsParsedOnDemand() throws IOException {
+        JsonReader json = new JsonReader(new StringReader("[2011, -7, 8.5, 9, 7.25, 12345678901]"));
+        json.next();
+        json.next();
+        assertEquals(2011, json.intValue());
+        json.next();
+        assertEquals(-7, json.intValue());
+        json.next();
+        assertEquals(85, json.tenthsValue());
+        json.next();
+        assertEquals(90, json.tenthsValue());
+        json.next();
+        assertEquals(GameColumns.toTenths(7.25), json.tenthsValue());
+        json.next();
+        assertThrows(NumberFormatException.class, json::intValue);
+    }
+
+    @Test
+    void skipValueSkipsNestedStructures() throws IOException {
+        JsonReader json = new JsonReader(new StringReader("{\"skip\": {\"a\": [1, {\"b\": []}]}, \"keep\": 5}"));
+        assertEquals(JsonReader.Token.BEGIN_OBJECT, json.next());
+        assertEquals(JsonReader.Token.NAME, json.next());
+        json.skipValue();
+        assertEquals(JsonReader.Token.NAME, json.next());
+        assertTrue(json.textEquals("keep"));
+        assertEquals(JsonReader.Token.NUMBER, json.next());
+        assertEquals(JsonReader.Token.END_OBJECT, json.next());
+    }
+
+    @Test
+    void catalogReportsBadGamesAndSkipsUnknownFields() throws IOException {
+        String text = "{\"total\": 3, \"games\": [\n"
+                + "{\"title\": \"A\", \"genre\": \"RPG\", \"year\": 2011, \"rating\": 9, \"developer\": \"D\","
+                + " \"platform\": \"PC\", \"extra\": {\"x\": [1]}},\n"
+                + "{\"title\": \"B\", \"genre\": \"RPG\", \"year\": \"soon\", \"rating\": 9, \"developer\": \"D\","
+                + " \"platform\": \"PC\"},\n"
+                + "{\"title\": \"C\", \"genre\": \"RPG\", \"year\": 2000, \"rating\": 9, \"developer\": \"D\"},\n"
+                + "42\n"
+                + "], \"offset\": 0}";
+        GameColumns columns = new GameColumns();
+        ImportReport report = new ImportReport();
+        CatalogFiles.readJson(new JsonReader(new StringReader(text)), columns, report);
+        assertEquals(1, columns.size());
+        assertEquals("A", columns.title(0));
+        assertEquals(3, report.errors());
+        assertTrue(report.messages().get(0).startsWith("строка 3:"), report.messages().get(0));
+        assertTrue(report.messages().get(1).contains("нет поля platform"), report.messages().get(1));
+    }
+
+    @Test
+    void nonUuidIdIsReportedNotReplaced() throws IOException {
+        UUID id = UUID.randomUUID();
+        String text = "[{\"id\": \"" + id + "\", \"title\": \"A\", \"genre\": \"RPG\", \"year\": 2011,"
+                + " \"rating\": 9, \"developer\": \"D\", \"platform\": \"PC\"},\n"
+                + "{\"id\": \"game-42\", \"title\": \"B\", \"genre\": \"RPG\", \"year\": 2011,"
+                + " \"rating\": 9, \"developer\": \"D\", \"platform\": \"PC\"}]";
+        GameColumns columns = new GameColumns();
+        ImportReport report = new ImportReport();
+        CatalogFiles.readJson(new JsonReader(new StringReader(text)), columns, report);
+        assertEquals(1, columns.size());
+        assertEquals(id.toString(), columns.id(0));
+        assertEquals(1, report.errors());
+        assertTrue(report.messages().get(0).startsWith("строка 2:"), report.messages().get(0));
+        assertTrue(report.messages().get(0).contains("game-42"), report.messages().get(0));
+        assertEquals(-1, columns.find("game-42"));
+    }
+
+    @Test
+    void exportedCatalogReadsBackUnchanged() throws IOException {
+        GameColumns original = new GameColumns();
+        original.appendNew("Quote \" backslash \\ tab\t", Game.Genre.RPG, 2011, 90, "Dev\nSecond line", "PC");
+        original.appendNew("Эмодзи 😀 \u0001", Game.Genre.ACTION_RPG, 1999, 5, "Студия", "PS4/Xbox One");
+        StringWriter out = new StringWriter();
+        CatalogExporter exporter = new CatalogExporter(out);
+        exporter.writeAll(original, CatalogFormat.JSON, false);
+        exporter.flush();
+
+        GameColumns loaded = new GameColumns();
+        ImportReport report = new ImportReport();
+        CatalogFiles.readJson(new JsonReader(new StringReader(out.toString())), loaded, report);
+        assertEquals(0, report.errors(), report.summary(5));
+        assertEquals(2, loaded.size());
+        for (int slot = 0; slot < 2; slot++) {
+            assertEquals(original.id(slot), loaded.id(slot));
+            assertEquals(original.title(slot), loaded.title(slot));
+            assertEquals(original.genre(slot), loaded.genre(slot));
+            assertEquals(original.year(slot), loaded.year(slot));
+            assertEquals(original.ratingTenths(slot), loaded.ratingTenths(slot));
+            assertEquals(original.developer(slot), loaded.developer(slot));
+            assertEquals(original.platform(slot), loaded.platform(slot));
+        }
+    }
+
+    @Test
+    void uuidIsParsedWithoutString() throws IOException {
+        UUID id = UUID.randomUUID();
+        JsonReader json = new JsonReader(new StringReader("[\"" + id + "\", \"not-a-uuid\"]"));
+        json.next();
+        json.next();
+        long[] parsed = new long[2];
+        assertTrue(json.uuidValue(parsed));
+        assertEquals(id, new UUID(parsed[0], parsed[1]));
+        json.next();
+        assertFalse(json.uuidValue(parsed));
+    }
+
+    private static void assertError(String text, String message) {
+        IOException error = assertThrows(IOException.class, () -> tokens(text), text);
+        assertTrue(error.getMessage().contains(message), error.getMessage());
+    }
+
+    private static List<String> tokens(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        JsonReader json = new JsonReader(new StringReader(text));
+        JsonReader.Token token;
+        do {
+            token = json.next();
+            tokens.add(switch (token) {
+                case NAME, STRING, NUMBER -> token + " " + json.string();
+                default -> token.toString();
+            });
+        } while (token != JsonReader.Token.END_DOCUMENT);
+        return tokens;
+    }
+
+    /**
+     * Читатель, который отдаёт текст по одному символу
+     */
+    private static Reader trickle(String text) {
+        return new StringReader(text) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1));
+            }
+        };
+    }
+}
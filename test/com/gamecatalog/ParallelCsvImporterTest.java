@@ -0,0 +1,123 @@
+package com.gamecatalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Параллельная загрузка CSV даёт те же строки и те же ошибки, что последовательное чтение
+ */
+class ParallelCsvImporterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void bareQuoteDoesNotShiftChunkBoundaries() throws IOException {
+        // Кавычка посреди поля без кавычек - обычный символ; дальше идут
+        // многострочные названия в кавычках, которые нельзя резать на части
+        Path file = write(2_000, i -> i == 3
+                ? "Monitor 27\" Edition,RPG,2010,7.5,Dev,PC"
+                : (i % 3 == 0
+                        ? "\"Title " + i + "\nsecond line, with comma\",Action,2001,8.0,Studio " + (i % 7) + ",PS5"
+                        : "\"Say \"\"hi\"\" " + i + "\",Action/RPG,2015,6.5,Studio " + (i % 5) + ",PC"));
+        for (long chunk : new long[]{64, 100, 257, 1024}) {
+            assertSameAsSequential(file, new ParallelCsvImporter(ForkJoinPool.commonPool(), chunk, chunk));
+        }
+    }
+
+    @Test
+    void recordSpanningSeveralChunks() throws IOException {
+        // Части делятся по смещениям, а не по записям: в середине поля в кавычках
+        // с переводами строк и удвоенными кавычками границы нет на много частей подряд
+        Path file = write(40, i -> i % 10 == 4
+                ? "\"Epic " + i + "\n" + "line, \"\"quoted\"\"\n".repeat(30) + "\",RPG,2000,5.0,Dev,PC"
+                : "Game " + i + ",RPG,notayear,5.0,Dev,PC");
+        for (long chunk : new long[]{16, 64, 333}) {
+            ImportReport report = assertSameAsSequential(file,
+                    new ParallelCsvImporter(ForkJoinPool.commonPool(), chunk, chunk));
+            assertEquals(36, report.errors());
+        }
+    }
+
+    @Test
+    void errorsKeepLineNumbersAcrossChunks() throws IOException {
+        Path file = write(500, i -> switch (i % 50) {
+            case 7 -> "\"unclosed,RPG,2000,5.0,Dev,PC\nstill,RPG,2000,5.0,Dev,PC\"x,RPG,2000,5.0,Dev,PC";
+            case 21 -> "Broken,RPG,notayear,5.0,Dev,PC";
+            case 33 -> "\"two\nlines\",RPG,2000";
+            default -> "Game " + i + ",RPG,2000,5.0,Dev,PC";
+        });
+        ImportReport report = assertSameAsSequential(file,
+                new ParallelCsvImporter(ForkJoinPool.commonPool(), 128, 128));
+        assertTrue(report.errors() > 0);
+    }
+
+    @Test
+    void defaultChunksOnLargeFile() throws IOException {
+        // Больше двух частей наименьшего размера (4 МБ)
+        Path file = write(120_000, i -> i % 1000 == 1
+                ? "Monitor 27\" Edition " + i + ",RPG,2010,7.5,Dev,PC"
+                : "\"Long title " + i + "\nwith a second line\",Action,2001,8.0,Studio " + (i % 7)
+                + ",\"" + "x".repeat(i % 20) + "\"");
+        ImportReport sequential = new ImportReport();
+        ImportReport parallel = new ImportReport();
+        List<String> expected = rows(CatalogFiles.load(file, sequential));
+        List<String> actual = rows(CatalogFiles.loadParallel(file, parallel));
+        assertEquals(0, sequential.errors());
+        assertEquals(0, parallel.errors(), parallel.summary(5));
+        assertEquals(expected, actual);
+    }
+
+    private interface Row {
+        String line(int i);
+    }
+
+    private Path write(int count, Row row) throws IOException {
+        Path file = Files.createTempFile(dir, "catalog", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("Каталог игр\r\n");
+            writer.write("Title,Genre,Year,Rating,Developer,Platform\r\n");
+            for (int i = 0; i < count; i++) {
+                writer.write(row.line(i));
+                writer.write("\r\n");
+            }
+        }
+        return file;
+    }
+
+    private static ImportReport assertSameAsSequential(Path file, ParallelCsvImporter importer) throws IOException {
+        ImportReport sequential = new ImportReport();
+        GameColumns expected;
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            expected = new GameColumns();
+            CatalogFiles.readCsv(reader, expected, sequential);
+        }
+        ImportReport parallel = new ImportReport();
+        GameColumns actual = importer.load(file, parallel);
+
+        assertEquals(rows(expected), rows(actual));
+        assertEquals(sequential.errors(), parallel.errors());
+        assertEquals(sequential.messages(), parallel.messages());
+        return parallel;
+    }
+
+    private static List<String> rows(GameColumns columns) {
+        List<String> rows = new ArrayList<>();
+        for (int slot = columns.nextSlot(0); slot >= 0; slot = columns.nextSlot(slot + 1)) {
+            rows.add(String.join("|", columns.title(slot), columns.genre(slot).name(),
+                    String.valueOf(columns.year(slot)), String.valueOf(columns.ratingTenths(slot)),
+                    columns.developer(slot), columns.platform(slot)));
+        }
+        return rows;
+    }
+}